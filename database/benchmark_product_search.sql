@@ -0,0 +1,101 @@
+# ---------------------------------------------------------------------- #
+# Benchmark:             product search on a 1M-row catalog              #
+# ---------------------------------------------------------------------- #
+# Builds a throw-away copy of the products table with 1,000,000 rows and
+# compares the old sentinel query against the predicates that
+# MySqlProductDao.search now emits, with and without the indexes from
+# migrations/001_add_product_search_indexes.sql.
+#
+# Run with:   mysql -u root -p < database/benchmark_product_search.sql
+#
+# EXPLAIN ANALYZE (MySQL 8.0.18+) prints the chosen access path and the
+# actual execution time of every query. Expect "Table scan on products"
+# for the sentinel query and "Index range scan on products using
+# idx_products_category_price" / "idx_products_subcategory_price" for the
+# generated queries once the indexes exist.
+
+DROP DATABASE IF EXISTS easyshop_benchmark;
+CREATE DATABASE easyshop_benchmark;
+USE easyshop_benchmark;
+
+CREATE TABLE products (
+    product_id INT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(100) NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    category_id INT NOT NULL,
+    description TEXT,
+    subcategory VARCHAR(20),
+    image_url VARCHAR(200),
+    stock INT NOT NULL DEFAULT 0,
+    featured BOOL NOT NULL DEFAULT 0,
+    PRIMARY KEY (product_id)
+);
+
+SET SESSION cte_max_recursion_depth = 1000000;
+
+INSERT INTO products (name, price, category_id, description, subcategory, image_url, stock, featured)
+WITH RECURSIVE seq (n) AS
+(
+    SELECT 1
+    UNION ALL
+    SELECT n + 1 FROM seq WHERE n < 1000000
+)
+SELECT CONCAT('Product ', n)
+     , ROUND(1 + RAND(n) * 999, 2)
+     , 1 + (n % 50)
+     , 'Benchmark product'
+     , ELT(1 + (n % 10), 'Black', 'White', 'Red', 'Blue', 'Gray', 'Silver', 'Mint', 'Charcoal', 'Lavender', 'Green')
+     , 'no-image.jpg'
+     , n % 100
+     , n % 7 = 0
+FROM seq;
+
+ANALYZE TABLE products;
+
+# ---------------------------------------------------------------------- #
+# Before: no secondary indexes                                           #
+# ---------------------------------------------------------------------- #
+
+# old sentinel query (category 7, 100.00 - 200.00)
+EXPLAIN ANALYZE
+SELECT * FROM products
+WHERE (category_id = 7 OR 7 = -1)
+   AND (price >= 100.00 OR 100.00 = -1)
+   AND (price <= 200.00 OR 200.00 = -1)
+   AND (subcategory = '' OR '' = '');
+
+# generated query, same filters
+EXPLAIN ANALYZE
+SELECT * FROM products WHERE category_id = 7 AND price >= 100.00 AND price <= 200.00;
+
+# ---------------------------------------------------------------------- #
+# After: migration 001                                                   #
+# ---------------------------------------------------------------------- #
+
+ALTER TABLE products
+    ADD INDEX idx_products_category_price (category_id, price),
+    ADD INDEX idx_products_subcategory_price (subcategory, price);
+
+ANALYZE TABLE products;
+
+# the sentinel query still cannot use the indexes
+EXPLAIN ANALYZE
+SELECT * FROM products
+WHERE (category_id = 7 OR 7 = -1)
+   AND (price >= 100.00 OR 100.00 = -1)
+   AND (price <= 200.00 OR 200.00 = -1)
+   AND (subcategory = '' OR '' = '');
+
+# category + price range -> range scan on idx_products_category_price
+EXPLAIN ANALYZE
+SELECT * FROM products WHERE category_id = 7 AND price >= 100.00 AND price <= 200.00;
+
+# category only -> ref lookup on idx_products_category_price
+EXPLAIN ANALYZE
+SELECT * FROM products WHERE category_id = 7;
+
+# subcategory + price range -> range scan on idx_products_subcategory_price
+EXPLAIN ANALYZE
+SELECT * FROM products WHERE subcategory = 'Blue' AND price >= 100.00 AND price <= 110.00;
+
+DROP DATABASE easyshop_benchmark;
@@ -0,0 +1,16 @@
+# ---------------------------------------------------------------------- #
+# Migration:             001 - product search indexes                    #
+# Applies to:            easyshop databases created before these indexes #
+# ---------------------------------------------------------------------- #
+# MySqlProductDao.search only emits the predicates a caller supplies, so
+# category and subcategory filters (optionally with a price range) can be
+# answered with an index range scan instead of a full table scan.
+#
+# The (category_id, price) index also satisfies the foreign key on
+# category_id, so InnoDB drops its implicit single-column index.
+
+USE easyshop;
+
+ALTER TABLE products
+    ADD INDEX idx_products_category_price (category_id, price),
+    ADD INDEX idx_products_subcategory_price (subcategory, price);
@@ -0,0 +1,16 @@
+# ---------------------------------------------------------------------- #
+# Migration:             002 - product name ordering indexes             #
+# Applies to:            easyshop databases created before these indexes #
+# ---------------------------------------------------------------------- #
+# Paged product listings sorted by name seek with
+#     (name, product_id) > (?, ?) ORDER BY name, product_id LIMIT ?
+# InnoDB appends the primary key to every secondary index, so these
+# indexes deliver rows already in (name, product_id) order, with or
+# without a category filter, and page N costs the same as page 1.
+# Price ordering is served by idx_products_category_price from 001.
+
+USE easyshop;
+
+ALTER TABLE products
+    ADD INDEX idx_products_name (name),
+    ADD INDEX idx_products_category_name (category_id, name);
@@ -0,0 +1,214 @@
+package org.yearup.cache;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded, time-limited cache.
+ *
+ * Reads never take a lock: a hit is a concurrent map lookup that marks its entry as referenced.
+ * Puts, invalidations and evictions are serialized. Once the cache is full, eviction approximates
+ * least-recently-used with the CLOCK algorithm: entries are visited in insertion order, a referenced
+ * entry has its mark cleared and goes to the back, and the first unreferenced entry is evicted.
+ * Every entry expires after the cache's time to live unless it is put with its own.
+ * A loaded value, including null, is cached so repeated lookups of a missing key are also served
+ * from memory. A load that races with an invalidation is returned to its caller but not stored,
+ * so an invalidated value can never be put back by a slow reader.
+ */
+public class BoundedCache<K, V>
+{
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+
+    // the clock hand: every stored entry in insertion order, plus replaced and removed ones not yet skipped over
+    private final ArrayDeque<Entry<K, V>> order = new ArrayDeque<>();
+    private volatile long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedCache(int maxSize, Duration ttl)
+    {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(int maxSize, Duration ttl, LongSupplier clock)
+    {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize must be positive");
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Return the cached value for the key, loading and caching it on a miss.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader)
+    {
+        Entry<K, V> entry = live(key);
+        if (entry != null)
+        {
+            hits.increment();
+            return entry.value;
+        }
+        misses.increment();
+        long generation = invalidations;
+
+        // load outside the lock so a slow load does not block writers of other keys
+        V value = loader.apply(key);
+
+        synchronized (this)
+        {
+            if (generation == invalidations)
+            {
+                store(key, value, clock.getAsLong() + ttlNanos);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Return the cached value for the key, or null when it is not cached.
+     */
+    public V getIfPresent(K key)
+    {
+        Entry<K, V> entry = live(key);
+        if (entry == null)
+        {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value)
+    {
+        store(key, value, clock.getAsLong() + ttlNanos);
+    }
+
+    /**
+     * Cache the value until the given time to live passes, or the cache's own if that is shorter.
+     */
+    public synchronized void put(K key, V value, Duration ttl)
+    {
+        store(key, value, clock.getAsLong() + Math.min(ttl.toNanos(), ttlNanos));
+    }
+
+    public synchronized void invalidate(K key)
+    {
+        invalidations++;
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll()
+    {
+        invalidations++;
+        entries.clear();
+        order.clear();
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public long hitCount()
+    {
+        return hits.sum();
+    }
+
+    public long missCount()
+    {
+        return misses.sum();
+    }
+
+    public long putCount()
+    {
+        return puts.sum();
+    }
+
+    public long evictionCount()
+    {
+        return evictions.sum();
+    }
+
+    private Entry<K, V> live(K key)
+    {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null)
+        {
+            return null;
+        }
+
+        if (clock.getAsLong() - entry.expiresAt >= 0)
+        {
+            if (entries.remove(key, entry)) evictions.increment();
+            return null;
+        }
+
+        // only write when the mark changes, so hot entries do not bounce their cache line between cores
+        if (!entry.referenced) entry.referenced = true;
+        return entry;
+    }
+
+    // caller holds the lock
+    private void store(K key, V value, long expiresAt)
+    {
+        Entry<K, V> entry = new Entry<>(key, value, expiresAt);
+        entries.put(key, entry);
+        order.addLast(entry);
+        puts.increment();
+
+        while (entries.size() > maxSize)
+        {
+            Entry<K, V> candidate = order.pollFirst();
+            if (entries.get(candidate.key) != candidate) continue;
+
+            if (candidate.referenced)
+            {
+                candidate.referenced = false;
+                order.addLast(candidate);
+            }
+            else
+            {
+                entries.remove(candidate.key, candidate);
+                evictions.increment();
+            }
+        }
+
+        // invalidated and replaced entries are only skipped when the hand reaches them; drop them
+        // before they outnumber the live ones
+        if (order.size() > 2 * Math.max(entries.size(), 16))
+        {
+            order.removeIf(stale -> entries.get(stale.key) != stale);
+        }
+    }
+
+    private static class Entry<K, V>
+    {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+        private volatile boolean referenced;
+
+        Entry(K key, V value, long expiresAt)
+        {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
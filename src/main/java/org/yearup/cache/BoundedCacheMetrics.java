@@ -0,0 +1,55 @@
+package org.yearup.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes a {@link BoundedCache}'s size, hit, miss, put and eviction counts as the standard
+ * Micrometer cache meters, tagged with the cache name.
+ */
+public class BoundedCacheMetrics extends CacheMeterBinder<BoundedCache<?, ?>>
+{
+    private final BoundedCache<?, ?> cache;
+
+    public BoundedCacheMetrics(BoundedCache<?, ?> cache, String cacheName)
+    {
+        super(cache, cacheName, Tags.empty());
+        this.cache = cache;
+    }
+
+    @Override
+    protected Long size()
+    {
+        return (long) cache.size();
+    }
+
+    @Override
+    protected long hitCount()
+    {
+        return cache.hitCount();
+    }
+
+    @Override
+    protected Long missCount()
+    {
+        return cache.missCount();
+    }
+
+    @Override
+    protected Long evictionCount()
+    {
+        return cache.evictionCount();
+    }
+
+    @Override
+    protected long putCount()
+    {
+        return cache.putCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry)
+    {
+    }
+}
@@ -0,0 +1,89 @@
+package org.yearup.configurations;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.yearup.cache.BoundedCache;
+import org.yearup.cache.BoundedCacheMetrics;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.ProductChangeListener;
+import org.yearup.data.ProductDao;
+import org.yearup.data.memory.CachingUserDao;
+import org.yearup.data.memory.FlashSaleStock;
+import org.yearup.data.memory.InMemoryCategoryDao;
+import org.yearup.data.memory.InMemoryProductDao;
+import org.yearup.data.memory.WriteBehindShoppingCartDao;
+import org.yearup.data.mysql.MySqlCategoryDao;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.data.mysql.MySqlShoppingCartDao;
+import org.yearup.data.mysql.MySqlUserDao;
+import org.yearup.models.User;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles the daos that controllers get injected. The MySql daos stay registered as components
+ * and are wrapped here by the in-memory layers that sit in front of them.
+ */
+@Configuration
+public class DaoConfig
+{
+    // lookups by id are a binary search over the immutable snapshot, so no cache sits in front of it
+    @Bean(initMethod = "reload")
+    @Primary
+    public InMemoryProductDao productDao(MySqlProductDao mySqlProductDao, ObjectProvider<ProductChangeListener> listeners)
+    {
+        return new InMemoryProductDao(mySqlProductDao, listeners.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Bean(initMethod = "reload")
+    @Primary
+    public InMemoryCategoryDao categoryDao(MySqlCategoryDao mySqlCategoryDao, CatalogVersion catalogVersion)
+    {
+        return new InMemoryCategoryDao(mySqlCategoryDao, catalogVersion::bump);
+    }
+
+    @Bean
+    @Primary
+    public CachingUserDao userDao(MySqlUserDao mySqlUserDao,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${users.cache.max-size:10000}") int maxSize,
+                                  @Value("${users.cache.ttl-seconds:300}") long ttlSeconds)
+    {
+        BoundedCache<String, User> cache = new BoundedCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+        new BoundedCacheMetrics(cache, "users").bindTo(meterRegistry);
+
+        return new CachingUserDao(mySqlUserDao, cache);
+    }
+
+    // closing the bean on shutdown flushes every pending cart change
+    @Bean(destroyMethod = "close")
+    @Primary
+    @ConditionalOnProperty(name = "cart.write-behind.enabled", havingValue = "true")
+    public WriteBehindShoppingCartDao shoppingCartDao(MySqlShoppingCartDao mySqlShoppingCartDao,
+                                                      ProductDao productDao,
+                                                      @Value("${cart.write-behind.flush-interval-ms:1000}") long flushIntervalMs,
+                                                      @Value("${cart.write-behind.idle-minutes:30}") long idleMinutes)
+    {
+        return new WriteBehindShoppingCartDao(mySqlShoppingCartDao, productDao,
+                Duration.ofMillis(flushIntervalMs), Duration.ofMinutes(idleMinutes));
+    }
+
+    // closing the bean on shutdown writes the remaining flash-sale sales
+    @Bean(initMethod = "load", destroyMethod = "close")
+    @ConditionalOnProperty(name = "flash-sale.enabled", havingValue = "true")
+    public FlashSaleStock flashSaleStock(ProductDao productDao,
+                                         @Value("${flash-sale.product-ids:}") int[] productIds,
+                                         @Value("${flash-sale.stripes:16}") int stripes,
+                                         @Value("${flash-sale.reconcile-interval-ms:500}") long reconcileIntervalMs)
+    {
+        return new FlashSaleStock(productDao, Arrays.stream(productIds).boxed().toList(), stripes,
+                Duration.ofMillis(reconcileIntervalMs));
+    }
+}
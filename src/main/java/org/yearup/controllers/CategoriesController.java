@@ -1,8 +1,11 @@
 package org.yearup.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.yearup.data.CatalogVersion;
 import org.yearup.data.CategoryDao;
 import org.yearup.data.ProductDao;
 import org.yearup.models.Category;
@@ -16,25 +19,31 @@ import java.util.List;
 // add annotation to allow cross site origin requests
 @RestController
 @RequestMapping("/categories")
-@CrossOrigin(origins = "http://localhost:63343", allowCredentials = "true")
+@CrossOrigin(origins = "http://localhost:63343", allowCredentials = "true", exposedHeaders = ProductPaging.NEXT_CURSOR_HEADER)
 public class CategoriesController
 {
     private CategoryDao categoryDao;
     private ProductDao productDao;
+    private CatalogVersion catalogVersion;
 
 
     // create an Autowired controller to inject the categoryDao and ProductDao
     @Autowired
-    public CategoriesController(CategoryDao categoryDao, ProductDao productDao)
+    public CategoriesController(CategoryDao categoryDao, ProductDao productDao, CatalogVersion catalogVersion)
     {
         this.categoryDao = categoryDao;
         this.productDao = productDao;
+        this.catalogVersion = catalogVersion;
     }
     // add the appropriate annotation for a get action
     @GetMapping
     @PreAuthorize("permitAll()")
-    public List<Category> getAll()
+    public List<Category> getAll(WebRequest request)
     {
+        // answer 304 from the catalog version alone when the client's copy is current
+        if (request.checkNotModified(catalogVersion.etag()))
+            return null;
+
         // find and return all categories
         return categoryDao.getAllCategories();
     }
@@ -42,20 +51,34 @@ public class CategoriesController
     // add the appropriate annotation for a get action
     @GetMapping("/{id}")
     @PreAuthorize("permitAll()")
-    public Category getById(@PathVariable int id)
+    public Category getById(@PathVariable int id, WebRequest request)
     {
+        if (request.checkNotModified(catalogVersion.etag()))
+            return null;
+
         // get the category by id
         return categoryDao.getById(id);
     }
 
     // the url to return all products in category 1 would look like this
     // https://localhost:8080/categories/1/products
+    // add ?limit=, ?sort=price|name and ?cursor= to page through a large category
     @GetMapping("{categoryId}/products")
     @PreAuthorize("permitAll()")
-    public List<Product> getProductsById(@PathVariable int categoryId)
+    public ResponseEntity<List<Product>> getProductsById(@PathVariable int categoryId,
+                                                         @RequestParam(name="limit", required = false) Integer limit,
+                                                         @RequestParam(name="sort", required = false) String sort,
+                                                         @RequestParam(name="cursor", required = false) String cursor,
+                                                         WebRequest request)
     {
+        if (request.checkNotModified(catalogVersion.etag()))
+            return null;
+
+        if (ProductPaging.isRequested(limit, sort, cursor))
+            return ProductPaging.page(productDao, categoryId, null, null, null, limit, sort, cursor);
+
         // get a list of product by categoryId
-        return productDao.listByCategoryId(categoryId);
+        return ResponseEntity.ok(productDao.listByCategoryId(categoryId));
     }
 
     // add annotation to call this method for a POST action
@@ -2,16 +2,20 @@ package org.yearup.controllers;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import org.yearup.data.*;
 import org.yearup.models.*;
+import org.yearup.security.SecurityUtils;
+import org.yearup.services.CheckoutService;
+import org.yearup.services.GroupCommitCheckoutService;
 
-import java.math.BigDecimal;
 import java.security.Principal;
-import java.time.LocalDateTime;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("orders")
@@ -19,101 +23,70 @@ import java.util.Map;
 @PreAuthorize("isAuthenticated()")
 public class OrdersController
 {
-    private OrderDao orderDao;
-    private OrderLineItemDao orderLineItemDao;
-    private ShoppingCartDao shoppingCartDao;
-    private ProfileDao profileDao;
+    private CheckoutService checkoutService;
+    private GroupCommitCheckoutService groupCommitCheckoutService;
     private UserDao userDao;
 
     @Autowired
-    public OrdersController(OrderDao orderDao, OrderLineItemDao orderLineItemDao, 
-                           ShoppingCartDao shoppingCartDao, ProfileDao profileDao, UserDao userDao)
+    public OrdersController(CheckoutService checkoutService, @Nullable GroupCommitCheckoutService groupCommitCheckoutService, UserDao userDao)
     {
-        this.orderDao = orderDao;
-        this.orderLineItemDao = orderLineItemDao;
-        this.shoppingCartDao = shoppingCartDao;
-        this.profileDao = profileDao;
+        this.checkoutService = checkoutService;
+        this.groupCommitCheckoutService = groupCommitCheckoutService;
         this.userDao = userDao;
     }
 
     @PostMapping
-    public Order checkout(Principal principal)
+    public CompletableFuture<Order> checkout(Principal principal)
     {
         try
         {
-            // Get the currently logged in username
-            String userName = principal.getName();
-            User user = userDao.getByUserName(userName);
+            // The id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
             
-            if (user == null)
+            if (userId < 0)
             {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
             }
-            
-            int userId = user.getId();
-
-            // Get the user's profile for shipping address
-            Profile profile = profileDao.getByUserId(userId);
-            
-            if (profile == null)
-            {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Profile not found. Please update your profile before checking out.");
-            }
-
-            // Get the user's shopping cart
-            ShoppingCart cart = shoppingCartDao.getByUserId(userId);
-            
-            if (cart.getItems().isEmpty())
-            {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Shopping cart is empty.");
-            }
 
-            // Create the order
-            Order order = new Order();
-            order.setUserId(userId);
-            order.setDate(LocalDateTime.now());
-            order.setAddress(profile.getAddress());
-            order.setCity(profile.getCity());
-            order.setState(profile.getState());
-            order.setZip(profile.getZip());
-            order.setShippingAmount(BigDecimal.ZERO); // Can be calculated based on business rules
-
-            // Insert the order into the database
-            Order createdOrder = orderDao.create(order);
-            
-            if (createdOrder == null)
+            // The order, its line items and the emptied cart are written in one transaction
+            if (groupCommitCheckoutService == null)
             {
-                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to create order.");
+                return CompletableFuture.completedFuture(checkoutService.checkout(userId));
             }
 
-            // Create order line items from shopping cart items
-            Map<Integer, ShoppingCartItem> cartItems = cart.getItems();
-            
-            for (ShoppingCartItem cartItem : cartItems.values())
-            {
-                OrderLineItem lineItem = new OrderLineItem();
-                lineItem.setOrderId(createdOrder.getOrderId());
-                lineItem.setProductId(cartItem.getProduct().getProductId());
-                lineItem.setSalesPrice(cartItem.getProduct().getPrice());
-                lineItem.setQuantity(cartItem.getQuantity());
-                lineItem.setDiscount(cartItem.getDiscountPercent());
-                
-                orderLineItemDao.create(lineItem);
-            }
+            // With group commit the order is queued and shares its transaction with others
+            return groupCommitCheckoutService.submit(userId).exceptionally(ex -> {
+                throw failure(ex);
+            });
+        }
+        catch (Exception e)
+        {
+            throw failure(e);
+        }
+    }
 
-            // Clear the shopping cart
-            shoppingCartDao.clearCart(userId);
+    private static ResponseStatusException failure(Throwable ex)
+    {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
 
-            // Return the created order
-            return createdOrder;
+        if (cause instanceof ResponseStatusException e)
+        {
+            return e;
         }
-        catch (ResponseStatusException e)
+        if (cause instanceof CheckoutException e)
         {
-            throw e;
+            HttpStatus status = switch (e.getReason())
+            {
+                case PROFILE_NOT_FOUND -> HttpStatus.NOT_FOUND;
+                case CART_EMPTY -> HttpStatus.BAD_REQUEST;
+                case OUT_OF_STOCK -> HttpStatus.CONFLICT;
+            };
+            return new ResponseStatusException(status, e.getMessage());
         }
-        catch (Exception e)
+        if (cause instanceof RejectedExecutionException)
         {
-            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+            return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many checkouts right now, please try again shortly.");
         }
+        return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
     }
 }
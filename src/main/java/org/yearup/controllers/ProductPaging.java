@@ -0,0 +1,75 @@
+package org.yearup.controllers;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductPage;
+import org.yearup.models.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Shared handling of the limit, sort and cursor parameters on product listings.
+ * The body stays a plain list of products; the cursor for the next page is returned in a header.
+ */
+final class ProductPaging
+{
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 500;
+
+    private ProductPaging()
+    {
+    }
+
+    static boolean isRequested(Integer limit, String sort, String cursor)
+    {
+        return limit != null || sort != null || cursor != null;
+    }
+
+    static ResponseEntity<List<Product>> page(ProductDao productDao,
+                                              Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                              Integer limit, String sort, String cursor)
+    {
+        ProductSort productSort;
+        ProductCursor after = null;
+
+        try
+        {
+            productSort = ProductSort.parse(sort);
+            if (cursor != null && !cursor.isEmpty())
+            {
+                after = ProductCursor.decode(cursor);
+            }
+        }
+        catch (IllegalArgumentException ex)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort or cursor.");
+        }
+
+        if (after != null && after.getSort() != productSort)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The cursor belongs to a different sort order.");
+        }
+
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize < 1)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Limit must be greater than 0.");
+        }
+        pageSize = Math.min(pageSize, MAX_LIMIT);
+
+        ProductPage page = productDao.searchPage(categoryId, minPrice, maxPrice, subCategory, productSort, after, pageSize);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext())
+        {
+            response.header(NEXT_CURSOR_HEADER, page.getNext().encode());
+        }
+        return response.body(page.getProducts());
+    }
+}
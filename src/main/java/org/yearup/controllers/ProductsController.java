@@ -1,40 +1,188 @@
 package org.yearup.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+import org.yearup.models.ProductFacets;
+import org.yearup.models.ProductSuggestion;
+import org.yearup.data.CatalogVersion;
 import org.yearup.data.ProductDao;
+import org.yearup.search.ProductFacetIndex;
+import org.yearup.search.ProductSearchIndex;
+import org.yearup.search.ProductSuggester;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("products")
-@CrossOrigin
+@CrossOrigin(exposedHeaders = ProductPaging.NEXT_CURSOR_HEADER)
 public class ProductsController
 {
+    private static final int MAX_SEARCH_RESULTS = 100;
+    // products per createAll call, and so per transaction
+    private static final int IMPORT_CHUNK_SIZE = 1000;
+    private static final String NDJSON = "application/x-ndjson";
+
     private ProductDao productDao;
+    private ProductSearchIndex searchIndex;
+    private ProductSuggester suggester;
+    private ProductFacetIndex facetIndex;
+    private CatalogVersion catalogVersion;
+    private ObjectMapper objectMapper;
 
     @Autowired
-    public ProductsController(ProductDao productDao)
+    public ProductsController(ProductDao productDao, ProductSearchIndex searchIndex, ProductSuggester suggester,
+                              ProductFacetIndex facetIndex, CatalogVersion catalogVersion, ObjectMapper objectMapper)
     {
         this.productDao = productDao;
+        this.searchIndex = searchIndex;
+        this.suggester = suggester;
+        this.facetIndex = facetIndex;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("")
     @PreAuthorize("permitAll()")
-    public List<Product> search(@RequestParam(name="cat", required = false) Integer categoryId,
+    public ResponseEntity<List<Product>> search(@RequestParam(name="cat", required = false) Integer categoryId,
+                                                @RequestParam(name="minPrice", required = false) BigDecimal minPrice,
+                                                @RequestParam(name="maxPrice", required = false) BigDecimal maxPrice,
+                                                @RequestParam(name="subCategory", required = false) String subCategory,
+                                                @RequestParam(name="limit", required = false) Integer limit,
+                                                @RequestParam(name="sort", required = false) String sort,
+                                                @RequestParam(name="cursor", required = false) String cursor,
+                                                WebRequest request
+                                                )
+    {
+        if (request.checkNotModified(catalogVersion.etag()))
+            return null;
+
+        try
+        {
+            if (ProductPaging.isRequested(limit, sort, cursor))
+                return ProductPaging.page(productDao, categoryId, minPrice, maxPrice, subCategory, limit, sort, cursor);
+
+            return ResponseEntity.ok(productDao.search(categoryId, minPrice, maxPrice, subCategory));
+        }
+        catch(ResponseStatusException ex)
+        {
+            throw ex;
+        }
+        catch(Exception ex)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+    }
+
+    // export-style listing: products are written to the response as they are read,
+    // so memory use does not grow with the size of the result
+    @GetMapping(value = "", params = "stream=true")
+    @PreAuthorize("permitAll()")
+    public void streamSearch(@RequestParam(name="cat", required = false) Integer categoryId,
+                             @RequestParam(name="minPrice", required = false) BigDecimal minPrice,
+                             @RequestParam(name="maxPrice", required = false) BigDecimal maxPrice,
+                             @RequestParam(name="subCategory", required = false) String subCategory,
+                             WebRequest request,
+                             HttpServletResponse response) throws IOException
+    {
+        if (request.checkNotModified(catalogVersion.etag()))
+            return;
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream()))
+        {
+            generator.writeStartArray();
+            productDao.streamSearch(categoryId, minPrice, maxPrice, subCategory, product -> {
+                try
+                {
+                    generator.writeObject(product);
+                }
+                catch (IOException ex)
+                {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            generator.writeEndArray();
+        }
+        catch (UncheckedIOException ex)
+        {
+            throw ex.getCause();
+        }
+    }
+
+    // full-text search over product names and descriptions, best match first
+    @GetMapping("search")
+    @PreAuthorize("permitAll()")
+    public List<Product> fullTextSearch(@RequestParam(name="q") String query,
+                                        @RequestParam(name="limit", defaultValue = "20") int limit)
+    {
+        try
+        {
+            List<Product> products = new ArrayList<>();
+
+            for (int productId : searchIndex.search(query, Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS)))
+            {
+                Product product = productDao.getById(productId);
+                if (product != null)
+                    products.add(product);
+            }
+
+            return products;
+        }
+        catch(Exception ex)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+    }
+
+    // counts per category, subcategory and price range for the same filters as the product listing
+    @GetMapping("facets")
+    @PreAuthorize("permitAll()")
+    public ProductFacets facets(@RequestParam(name="cat", required = false) Integer categoryId,
                                 @RequestParam(name="minPrice", required = false) BigDecimal minPrice,
                                 @RequestParam(name="maxPrice", required = false) BigDecimal maxPrice,
-                                @RequestParam(name="subCategory", required = false) String subCategory
-                                )
+                                @RequestParam(name="subCategory", required = false) String subCategory)
+    {
+        try
+        {
+            return facetIndex.facets(categoryId, minPrice, maxPrice, subCategory);
+        }
+        catch(Exception ex)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+    }
+
+    // type-ahead suggestions: products with a word in their name starting with the prefix
+    @GetMapping("suggest")
+    @PreAuthorize("permitAll()")
+    public List<ProductSuggestion> suggest(@RequestParam(name="prefix") String prefix,
+                                           @RequestParam(name="limit", defaultValue = "10") int limit)
     {
         try
         {
-            return productDao.search(categoryId, minPrice, maxPrice, subCategory);
+            return suggester.suggest(prefix, Math.min(Math.max(limit, 1), ProductSuggester.MAX_SUGGESTIONS));
         }
         catch(Exception ex)
         {
@@ -44,8 +192,11 @@ public class ProductsController
 
     @GetMapping("{id}")
     @PreAuthorize("permitAll()")
-    public Product getById(@PathVariable int id )
+    public Product getById(@PathVariable int id, WebRequest request)
     {
+        if (request.checkNotModified(catalogVersion.etag()))
+            return null;
+
         try
         {
             var product = productDao.getById(id);
@@ -75,6 +226,82 @@ public class ProductsController
         }
     }
 
+    // bulk import from a JSON array or newline-delimited JSON; products are read and inserted a chunk
+    // at a time, one transaction per chunk. If a chunk fails, the chunks before it stay imported and
+    // their ids are returned with the error status, so the client can resume after the last of them.
+    @PostMapping(value = "bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public ResponseEntity<List<Integer>> addProducts(InputStream body)
+    {
+        List<Integer> productIds = new ArrayList<>();
+        int read = 0;
+
+        try (MappingIterator<Product> products = objectMapper.readerFor(Product.class).readValues(body))
+        {
+            List<Product> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            while (products.hasNextValue())
+            {
+                chunk.add(products.nextValue());
+                read++;
+
+                if (chunk.size() == IMPORT_CHUNK_SIZE)
+                {
+                    productDao.createAll(chunk).forEach(product -> productIds.add(product.getProductId()));
+                    chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+                }
+            }
+
+            if (!chunk.isEmpty())
+                productDao.createAll(chunk).forEach(product -> productIds.add(product.getProductId()));
+
+            return ResponseEntity.ok(productIds);
+        }
+        catch(JsonProcessingException ex)
+        {
+            if (!productIds.isEmpty())
+                return ResponseEntity.badRequest().body(productIds);
+
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid product at item " + (read + 1) + ".");
+        }
+        catch(Exception ex)
+        {
+            if (!productIds.isEmpty())
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(productIds);
+
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+    }
+
+    // inventory sync: stock deltas and price changes from a JSON array or newline-delimited JSON,
+    // applied in one transaction with one result per line
+    @PatchMapping(value = "bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    public List<ProductAdjustmentResult> adjustProducts(InputStream body)
+    {
+        List<ProductAdjustment> adjustments = new ArrayList<>();
+
+        try (MappingIterator<ProductAdjustment> lines = objectMapper.readerFor(ProductAdjustment.class).readValues(body))
+        {
+            while (lines.hasNextValue())
+            {
+                adjustments.add(lines.nextValue());
+            }
+        }
+        catch(IOException ex)
+        {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid adjustment at item " + (adjustments.size() + 1) + ".");
+        }
+
+        try
+        {
+            return productDao.adjustAll(adjustments);
+        }
+        catch(Exception ex)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+    }
+
     @PutMapping("{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     public void updateProduct(@PathVariable int id, @RequestBody Product product)
@@ -8,7 +8,7 @@ import org.springframework.web.server.ResponseStatusException;
 import org.yearup.data.ProfileDao;
 import org.yearup.data.UserDao;
 import org.yearup.models.Profile;
-import org.yearup.models.User;
+import org.yearup.security.SecurityUtils;
 
 import java.security.Principal;
 
@@ -33,18 +33,14 @@ public class ProfileController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
             
-            if (user == null)
+            if (userId < 0)
             {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
             }
             
-            int userId = user.getId();
-            
             // get the profile for the user
             Profile profile = profileDao.getByUserId(userId);
             
@@ -66,18 +62,14 @@ public class ProfileController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
             
-            if (user == null)
+            if (userId < 0)
             {
                 throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found.");
             }
             
-            int userId = user.getId();
-            
             // update the profile
             profileDao.update(userId, profile);
             
@@ -8,11 +8,14 @@ import org.springframework.web.server.ResponseStatusException;
 import org.yearup.data.ProductDao;
 import org.yearup.data.ShoppingCartDao;
 import org.yearup.data.UserDao;
+import org.yearup.models.CartOperation;
+import org.yearup.models.Product;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.ShoppingCartItem;
-import org.yearup.models.User;
+import org.yearup.security.SecurityUtils;
 
 import java.security.Principal;
+import java.util.List;
 
 // convert this class to a REST controller
 @RestController
@@ -41,11 +44,8 @@ public class ShoppingCartController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
-            int userId = user.getId();
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
 
             // use the shoppingcartDao to get all items in the cart and return the cart
             return shoppingCartDao.getByUserId(userId);
@@ -63,11 +63,8 @@ public class ShoppingCartController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
-            int userId = user.getId();
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
 
             // add product to cart (or increment quantity if already exists)
             shoppingCartDao.addProduct(userId, productId);
@@ -81,6 +78,25 @@ public class ShoppingCartController
         }
     }
 
+    // ?view=delta returns only the changed line instead of the whole cart, so the cart is not read back
+    @PostMapping(value = "products/{productId}", params = "view=delta")
+    public ShoppingCartItem addProductToCartDelta(@PathVariable int productId, Principal principal)
+    {
+        ShoppingCartItem added;
+        try
+        {
+            int userId = SecurityUtils.getUserId(principal, userDao);
+
+            added = withProduct(userId, shoppingCartDao.addProduct(userId, productId));
+        }
+        catch(Exception e)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+
+        return inCatalog(added, productId);
+    }
+
     // add a PUT method to update an existing product in the cart - the url should be
     // https://localhost:8080/cart/products/15 (15 is the productId to be updated)
     // the BODY should be a ShoppingCartItem - quantity is the only value that will be updated
@@ -89,11 +105,8 @@ public class ShoppingCartController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
-            int userId = user.getId();
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
 
             // get the quantity from the request body
             int quantity = item.getQuantity();
@@ -116,6 +129,57 @@ public class ShoppingCartController
         }
     }
 
+    @PutMapping(value = "products/{productId}", params = "view=delta")
+    public ShoppingCartItem updateProductInCartDelta(@PathVariable int productId, @RequestBody ShoppingCartItem item, Principal principal)
+    {
+        if (item.getQuantity() <= 0)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Quantity must be greater than 0.");
+
+        ShoppingCartItem updated;
+        ShoppingCartItem priced;
+        try
+        {
+            int userId = SecurityUtils.getUserId(principal, userDao);
+
+            updated = shoppingCartDao.updateQuantity(userId, productId, item.getQuantity());
+            priced = updated == null ? null : withProduct(userId, updated);
+        }
+        catch(Exception e)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+
+        if (updated == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "The product is not in the cart.");
+
+        return inCatalog(priced, productId);
+    }
+
+    // apply a list of add / set / remove operations in one transaction, e.g. to sync offline edits
+    // https://localhost:8080/cart  [{"op":"add","productId":15}, {"op":"set","productId":3,"quantity":2}, {"op":"remove","productId":7}]
+    @PatchMapping
+    public ShoppingCart applyOperations(@RequestBody List<CartOperation> operations, Principal principal)
+    {
+        for (CartOperation operation : operations)
+        {
+            if (!isValid(operation))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cart operation for product " + operation.getProductId() + ".");
+        }
+
+        try
+        {
+            int userId = SecurityUtils.getUserId(principal, userDao);
+
+            shoppingCartDao.apply(userId, operations);
+
+            return shoppingCartDao.getByUserId(userId);
+        }
+        catch(Exception e)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+    }
+
     // add a DELETE method to clear all products from the current users cart
     // https://localhost:8080/cart
     @DeleteMapping
@@ -123,17 +187,14 @@ public class ShoppingCartController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
-            int userId = user.getId();
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
 
             // clear all items from the cart
             shoppingCartDao.clearCart(userId);
             
-            // return the empty cart
-            return shoppingCartDao.getByUserId(userId);
+            // the cart is known to be empty, no need to read it back
+            return new ShoppingCart();
         }
         catch(Exception e)
         {
@@ -148,11 +209,8 @@ public class ShoppingCartController
     {
         try
         {
-            // get the currently logged in username
-            String userName = principal.getName();
-            // find database user by userId
-            User user = userDao.getByUserName(userName);
-            int userId = user.getId();
+            // the id of the logged in user comes from the token
+            int userId = SecurityUtils.getUserId(principal, userDao);
 
             // remove the product from the cart
             shoppingCartDao.removeProduct(userId, productId);
@@ -165,4 +223,67 @@ public class ShoppingCartController
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
         }
     }
+
+    // the removed line is reported with a quantity of 0
+    @DeleteMapping(value = "products/{productId}", params = "view=delta")
+    public ShoppingCartItem removeProductFromCartDelta(@PathVariable int productId, Principal principal)
+    {
+        ShoppingCartItem removed;
+        try
+        {
+            int userId = SecurityUtils.getUserId(principal, userDao);
+
+            shoppingCartDao.removeProduct(userId, productId);
+
+            Product product = new Product();
+            product.setProductId(productId);
+
+            removed = new ShoppingCartItem();
+            removed.setProduct(product);
+            removed.setQuantity(0);
+            removed = withProduct(userId, removed);
+        }
+        catch(Exception e)
+        {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Oops... our bad.");
+        }
+
+        return inCatalog(removed, productId);
+    }
+
+    private static boolean isValid(CartOperation operation)
+    {
+        if (operation.getOp() == null) return false;
+
+        return switch (operation.getOp())
+        {
+            case ADD -> operation.getQuantity() == null || operation.getQuantity() > 0;
+            case SET -> operation.getQuantity() != null && operation.getQuantity() >= 0;
+            case REMOVE -> true;
+        };
+    }
+
+    // product details come from the in-memory catalog rather than a join; a line whose product has
+    // left the catalog is dropped from the cart instead of being priced, and null is returned
+    private ShoppingCartItem withProduct(int userId, ShoppingCartItem item)
+    {
+        Product product = productDao.getById(item.getProductId());
+
+        if (product == null)
+        {
+            shoppingCartDao.removeProduct(userId, item.getProductId());
+            return null;
+        }
+
+        item.setProduct(product);
+        return item;
+    }
+
+    private static ShoppingCartItem inCatalog(ShoppingCartItem item, int productId)
+    {
+        if (item == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Product " + productId + " is no longer in the catalog.");
+
+        return item;
+    }
 }
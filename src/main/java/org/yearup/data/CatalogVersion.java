@@ -0,0 +1,49 @@
+package org.yearup.data;
+
+import org.springframework.stereotype.Component;
+import org.yearup.models.Product;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version of the whole catalog, used as the validator for conditional GETs of products and
+ * categories. Every product change the catalog reports and every category write bumps it.
+ * The ETag includes the startup time so a restarted server never reuses an old tag.
+ * No Last-Modified is sent: it only has one-second granularity, so a client that read the
+ * catalog in the same second as a change would keep being told its stale copy is current.
+ */
+@Component
+public class CatalogVersion implements ProductChangeListener
+{
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    public void bump()
+    {
+        version.incrementAndGet();
+    }
+
+    public String etag()
+    {
+        return "\"" + Long.toString(startedAt, 36) + "-" + version.get() + "\"";
+    }
+
+    @Override
+    public void productsLoaded(List<Product> products)
+    {
+        bump();
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        bump();
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        bump();
+    }
+}
@@ -0,0 +1,16 @@
+package org.yearup.data;
+
+import org.yearup.models.Order;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface CheckoutDao
+{
+    // takes the stock, creates the order and its line items from the user's cart and empties the cart, in one
+    // transaction; throws CheckoutException when the user has no profile, an empty cart or a line that is short
+    Order checkout(int userId, BigDecimal shippingAmount);
+    // checks out every user in one transaction; one result per user, in order. An order that fails with a
+    // CheckoutException is undone on its own, any other failure rolls back the whole batch and is thrown
+    List<CheckoutResult> checkoutAll(List<Integer> userIds, BigDecimal shippingAmount);
+}
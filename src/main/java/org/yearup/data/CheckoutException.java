@@ -0,0 +1,42 @@
+package org.yearup.data;
+
+import java.util.List;
+
+/**
+ * Thrown when a cart cannot be turned into an order. Nothing has been written when it is thrown.
+ */
+public class CheckoutException extends RuntimeException
+{
+    public enum Reason
+    {
+        PROFILE_NOT_FOUND,
+        CART_EMPTY,
+        OUT_OF_STOCK
+    }
+
+    private final Reason reason;
+    private final List<Integer> shortProductIds;
+
+    public CheckoutException(Reason reason, String message)
+    {
+        this(reason, message, List.of());
+    }
+
+    public CheckoutException(Reason reason, String message, List<Integer> shortProductIds)
+    {
+        super(message);
+        this.reason = reason;
+        this.shortProductIds = shortProductIds;
+    }
+
+    public Reason getReason()
+    {
+        return reason;
+    }
+
+    // the products that did not have enough stock for their line, when the reason is OUT_OF_STOCK
+    public List<Integer> getShortProductIds()
+    {
+        return shortProductIds;
+    }
+}
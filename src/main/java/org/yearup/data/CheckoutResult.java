@@ -0,0 +1,43 @@
+package org.yearup.data;
+
+import org.yearup.models.Order;
+
+/**
+ * The outcome of one order in a batch checkout: the placed order, or why it was not placed.
+ */
+public class CheckoutResult
+{
+    private final Order order;
+    private final CheckoutException error;
+
+    private CheckoutResult(Order order, CheckoutException error)
+    {
+        this.order = order;
+        this.error = error;
+    }
+
+    public static CheckoutResult placed(Order order)
+    {
+        return new CheckoutResult(order, null);
+    }
+
+    public static CheckoutResult failed(CheckoutException error)
+    {
+        return new CheckoutResult(null, error);
+    }
+
+    public boolean isPlaced()
+    {
+        return order != null;
+    }
+
+    public Order getOrder()
+    {
+        return order;
+    }
+
+    public CheckoutException getError()
+    {
+        return error;
+    }
+}
@@ -0,0 +1,29 @@
+package org.yearup.data;
+
+import org.yearup.models.Product;
+
+import java.util.List;
+
+/**
+ * Receives every product the catalog loads or stores, so secondary in-memory structures
+ * (search indexes, caches) can be kept in step with the products table.
+ */
+public interface ProductChangeListener
+{
+    void productsLoaded(List<Product> products);
+    void productSaved(Product product);
+
+    // listeners that rebuild on every save can override this to rebuild once per bulk write
+    default void productsSaved(List<Product> products)
+    {
+        products.forEach(this::productSaved);
+    }
+
+    void productDeleted(int productId);
+
+    // only the stock of these products changed (checkout); listeners that do not index stock can skip it
+    default void stockChanged(List<Product> products)
+    {
+        productsSaved(products);
+    }
+}
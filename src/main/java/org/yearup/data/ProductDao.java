@@ -1,16 +1,35 @@
 package org.yearup.data;
 
 import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductPage;
+import org.yearup.models.ProductSort;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ProductDao
 {
     List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory);
+    ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                           ProductSort sort, ProductCursor after, int limit);
+    // hands each matching product to the consumer as it is read, without building the whole list first
+    void streamSearch(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, Consumer<Product> consumer);
     List<Product> listByCategoryId(int categoryId);
     Product getById(int productId);
+    // the products that exist among the ids, in product_id order
+    List<Product> getByIds(Collection<Integer> productIds);
     Product create(Product product);
+    // inserts in batches in one transaction and sets the generated id on each product; returns the same products
+    List<Product> createAll(List<Product> products);
     void update(int productId, Product product);
+    // applies stock deltas and price changes in one transaction; one result per adjustment, in order
+    List<ProductAdjustmentResult> adjustAll(List<ProductAdjustment> adjustments);
     void delete(int productId);
+    // tells an in-memory copy that a committed checkout took stock of these products in the database
+    void stockTaken(Collection<Integer> productIds);
 }
@@ -1,12 +1,27 @@
 package org.yearup.data;
 
+import org.yearup.models.CartOperation;
 import org.yearup.models.ShoppingCart;
+import org.yearup.models.ShoppingCartItem;
+
+import java.util.List;
+import java.util.Map;
 
 public interface ShoppingCartDao
 {
     ShoppingCart getByUserId(int userId);
-    void addProduct(int userId, int productId);
-    void updateQuantity(int userId, int productId, int quantity);
+    // the mutations return the line as stored; its product only carries the product id
+    ShoppingCartItem addProduct(int userId, int productId);
+    // returns null when the product is not in the cart
+    ShoppingCartItem updateQuantity(int userId, int productId, int quantity);
+    // applies the operations in order, in one transaction
+    void apply(int userId, List<CartOperation> operations);
+    // applies each user's operations in order, every cart in one transaction
+    void applyAll(Map<Integer, List<CartOperation>> operationsByUser);
     void clearCart(int userId);
     void removeProduct(int userId, int productId);
+    // makes sure every change to the user's cart has reached the database
+    void flush(int userId);
+    // forgets any copy of the cart held in memory, after the database cart was changed directly (checkout)
+    void evict(int userId);
 }
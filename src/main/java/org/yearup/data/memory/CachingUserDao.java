@@ -0,0 +1,102 @@
+package org.yearup.data.memory;
+
+import org.yearup.cache.BoundedCache;
+import org.yearup.data.UserDao;
+import org.yearup.models.User;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Caches users by username. Login, token checks and registration each look the same user up
+ * several times; only the first lookup reaches the database. Unknown usernames are cached too,
+ * so repeated {@link #exists} checks during registration stay in memory, and {@link #create}
+ * drops the entry so the new user is seen right away. A lookup that fails throws and is not
+ * cached, so only a completed query can record that a user does not exist.
+ *
+ * Usernames are compared case-insensitively, as the users table does. Callers always get their
+ * own copy of a cached user, so changing it cannot corrupt the cache.
+ */
+public class CachingUserDao implements UserDao
+{
+    private final UserDao delegate;
+    private final BoundedCache<String, User> cache;
+
+    public CachingUserDao(UserDao delegate, BoundedCache<String, User> cache)
+    {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public List<User> getAll()
+    {
+        return delegate.getAll();
+    }
+
+    @Override
+    public User getUserById(int userId)
+    {
+        return delegate.getUserById(userId);
+    }
+
+    @Override
+    public User getByUserName(String username)
+    {
+        return copy(cached(username));
+    }
+
+    @Override
+    public int getIdByUsername(String username)
+    {
+        User user = cached(username);
+        return user == null ? -1 : user.getId();
+    }
+
+    @Override
+    public User create(User user)
+    {
+        try
+        {
+            return delegate.create(user);
+        }
+        finally
+        {
+            cache.invalidate(key(user.getUsername()));
+        }
+    }
+
+    @Override
+    public boolean exists(String username)
+    {
+        return cached(username) != null;
+    }
+
+    private User cached(String username)
+    {
+        if (username == null)
+        {
+            return null;
+        }
+        return cache.get(key(username), key -> delegate.getByUserName(username));
+    }
+
+    private static String key(String username)
+    {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    private static User copy(User user)
+    {
+        if (user == null)
+        {
+            return null;
+        }
+
+        User copy = new User(user.getId(), user.getUsername(), user.getPassword(), null);
+        copy.setAuthorities(new HashSet<>(user.getAuthorities()));
+        copy.setActivated(user.isActivated());
+        return copy;
+    }
+}
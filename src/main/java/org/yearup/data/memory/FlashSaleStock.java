@@ -0,0 +1,210 @@
+package org.yearup.data.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the stock of selected flash-sale products in memory, so checkouts of those products reserve
+ * against a {@link StripedStockCounter} instead of all queueing for the same row lock in MySQL.
+ *
+ * Each counter is seeded from products.stock when the bean starts. Sold quantities are written back
+ * on an interval as one batched stock adjustment, and once more on close, so the database and the
+ * catalog trail the counter by at most one interval. The counter is authoritative while the sale
+ * runs: stock changes made in the database in the meantime are not picked up, and only one instance
+ * of the application may sell a flash-sale product.
+ */
+public class FlashSaleStock implements AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleStock.class);
+
+    private final ProductDao productDao;
+    private final Set<Integer> productIds;
+    private final int stripes;
+    private final Map<Integer, Sku> skus = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reconciler;
+
+    public FlashSaleStock(ProductDao productDao, Collection<Integer> productIds, int stripes, Duration reconcileInterval)
+    {
+        this.productDao = productDao;
+        this.productIds = Set.copyOf(productIds);
+        this.stripes = stripes;
+
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flash-sale-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileInterval.toMillis(), reconcileInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Seed a counter for every flash-sale product from its stored stock.
+     */
+    public void load()
+    {
+        for (Product product : productDao.getByIds(productIds))
+        {
+            skus.put(product.getProductId(), new Sku(product.getStock(), stripes));
+        }
+
+        Set<Integer> unknown = new HashSet<>(productIds);
+        unknown.removeAll(skus.keySet());
+        if (!unknown.isEmpty())
+        {
+            log.warn("Flash-sale products {} do not exist and are sold from the database", unknown);
+        }
+    }
+
+    public boolean covers(int productId)
+    {
+        return skus.containsKey(productId);
+    }
+
+    /**
+     * Reserve every quantity, or none of them. Returns the products that were short, empty when the
+     * whole reservation was taken. Products not in the sale are ignored.
+     */
+    public List<Integer> reserve(Map<Integer, Integer> quantities)
+    {
+        List<Integer> shortProductIds = new ArrayList<>();
+        Map<Integer, Integer> taken = new HashMap<>();
+
+        quantities.forEach((productId, quantity) -> {
+            Sku sku = skus.get(productId);
+            if (sku == null) return;
+
+            if (sku.counter.tryTake(quantity)) taken.put(productId, quantity);
+            else shortProductIds.add(productId);
+        });
+
+        if (!shortProductIds.isEmpty())
+        {
+            release(taken);
+        }
+        return shortProductIds;
+    }
+
+    /**
+     * Give back a reservation whose checkout did not commit.
+     */
+    public void release(Map<Integer, Integer> quantities)
+    {
+        quantities.forEach((productId, quantity) -> {
+            Sku sku = skus.get(productId);
+            if (sku != null) sku.counter.giveBack(quantity);
+        });
+    }
+
+    /**
+     * Write what has been sold since the last run to the database in one batch.
+     */
+    public synchronized void reconcile()
+    {
+        // sold so far is worked out from totals rather than counted per checkout, so nothing is lost
+        // to a race and a reading taken mid-checkout is corrected on the next run
+        List<ProductAdjustment> adjustments = new ArrayList<>();
+        Map<Integer, Integer> deltas = new HashMap<>();
+        skus.forEach((productId, sku) -> {
+            int unwritten = sku.seeded - sku.counter.available() - sku.written;
+            if (unwritten != 0)
+            {
+                adjustments.add(new ProductAdjustment(productId, -unwritten, null));
+                deltas.put(productId, unwritten);
+            }
+        });
+
+        if (adjustments.isEmpty()) return;
+
+        // only a stored adjustment counts as written; anything else is tried again on the next run
+        List<ProductAdjustment> writeDowns = new ArrayList<>();
+        for (ProductAdjustmentResult result : productDao.adjustAll(adjustments))
+        {
+            int productId = result.getProductId();
+            switch (result.getStatus())
+            {
+                case UPDATED -> skus.get(productId).written += deltas.get(productId);
+                case REJECTED -> {
+                    // the stored stock was lowered below what the sale has sold; the orders stand, so the
+                    // stock is written down to nothing rather than left overstated once the sale ends
+                    log.error("Flash-sale product {} has only {} in stock but {} more were sold; writing its stock down to 0",
+                            productId, result.getStock(), deltas.get(productId));
+                    writeDowns.add(new ProductAdjustment(productId, -result.getStock(), null));
+                }
+                case NOT_FOUND -> log.warn("Flash-sale product {} no longer exists; {} sold are not written", productId, deltas.get(productId));
+            }
+        }
+
+        if (writeDowns.isEmpty()) return;
+
+        for (ProductAdjustmentResult result : productDao.adjustAll(writeDowns))
+        {
+            if (result.getStatus() == ProductAdjustmentResult.Status.UPDATED)
+            {
+                skus.get(result.getProductId()).written += deltas.get(result.getProductId());
+            }
+        }
+    }
+
+    /**
+     * Stop the background reconciler and write the remaining sales.
+     */
+    @Override
+    public void close()
+    {
+        reconciler.shutdown();
+        try
+        {
+            reconciler.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        reconcile();
+    }
+
+    private void reconcileQuietly()
+    {
+        try
+        {
+            reconcile();
+        }
+        catch (RuntimeException ex)
+        {
+            // nothing was marked as written, so the same quantities are retried on the next run
+            log.warn("Could not write flash-sale stock", ex);
+        }
+    }
+
+    private static class Sku
+    {
+        private final int seeded;
+        private final StripedStockCounter counter;
+        // sold quantity already written to the database; only touched by reconcile
+        private int written;
+
+        private Sku(int stock, int stripes)
+        {
+            this.seeded = stock;
+            this.counter = new StripedStockCounter(stock, stripes);
+        }
+    }
+}
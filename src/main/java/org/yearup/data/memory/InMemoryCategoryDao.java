@@ -0,0 +1,125 @@
+package org.yearup.data.memory;
+
+import org.yearup.data.CategoryDao;
+import org.yearup.models.Category;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves categories from an immutable snapshot loaded once at startup and forwards writes to the
+ * wrapped dao. After every successful write the affected row is re-read and a new snapshot is
+ * swapped in, so listing or reading categories never queries the database. The change callback
+ * runs after each snapshot swap.
+ */
+public class InMemoryCategoryDao implements CategoryDao
+{
+    private final CategoryDao delegate;
+    private final Runnable onChange;
+    private volatile Snapshot snapshot;
+
+    public InMemoryCategoryDao(CategoryDao delegate)
+    {
+        this(delegate, () -> {});
+    }
+
+    public InMemoryCategoryDao(CategoryDao delegate, Runnable onChange)
+    {
+        this.delegate = delegate;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Load every category from the wrapped dao and replace the current snapshot.
+     */
+    public synchronized void reload()
+    {
+        snapshot = new Snapshot(delegate.getAllCategories());
+    }
+
+    @Override
+    public List<Category> getAllCategories()
+    {
+        return snapshot().all;
+    }
+
+    @Override
+    public Category getById(int categoryId)
+    {
+        return snapshot().byId.get(categoryId);
+    }
+
+    @Override
+    public synchronized Category create(Category category)
+    {
+        Category created = delegate.create(category);
+
+        if (created != null)
+        {
+            refresh(created.getCategoryId());
+        }
+
+        return created;
+    }
+
+    @Override
+    public synchronized void update(int categoryId, Category category)
+    {
+        delegate.update(categoryId, category);
+        refresh(categoryId);
+    }
+
+    @Override
+    public synchronized void delete(int categoryId)
+    {
+        delegate.delete(categoryId);
+        refresh(categoryId);
+    }
+
+    // re-read the row so the snapshot holds exactly what the database stored
+    private void refresh(int categoryId)
+    {
+        Map<Integer, Category> categories = new LinkedHashMap<>(snapshot().byId);
+        Category stored = delegate.getById(categoryId);
+
+        if (stored == null) categories.remove(categoryId);
+        else categories.put(categoryId, stored);
+
+        snapshot = new Snapshot(categories.values());
+        onChange.run();
+    }
+
+    private Snapshot snapshot()
+    {
+        Snapshot current = snapshot;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                if (snapshot == null) reload();
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot
+    {
+        private final List<Category> all;
+        private final Map<Integer, Category> byId;
+
+        Snapshot(Collection<Category> categories)
+        {
+            all = categories.stream()
+                            .sorted(Comparator.comparingInt(Category::getCategoryId))
+                            .toList();
+
+            Map<Integer, Category> map = new LinkedHashMap<>();
+            all.forEach(category -> map.put(category.getCategoryId(), category));
+            byId = Map.copyOf(map);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package org.yearup.data.memory;
+
+import org.yearup.data.ProductChangeListener;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductPage;
+import org.yearup.models.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Serves product reads from an in-memory {@link ProductCatalog} and forwards writes to the
+ * wrapped dao. After every successful write the affected row is re-read and a new catalog
+ * snapshot is swapped in, so readers never see a partially updated index. Registered
+ * {@link ProductChangeListener}s are told about every load and change in the same order.
+ */
+public class InMemoryProductDao implements ProductDao
+{
+    private final ProductDao delegate;
+    private final List<ProductChangeListener> listeners;
+    private volatile ProductCatalog catalog;
+
+    public InMemoryProductDao(ProductDao delegate)
+    {
+        this(delegate, List.of());
+    }
+
+    public InMemoryProductDao(ProductDao delegate, List<ProductChangeListener> listeners)
+    {
+        this.delegate = delegate;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Load every product from the wrapped dao and replace the current snapshot.
+     */
+    public synchronized void reload()
+    {
+        catalog = new ProductCatalog(delegate.search(null, null, null, null));
+
+        List<Product> products = catalog.all();
+        listeners.forEach(listener -> listener.productsLoaded(products));
+    }
+
+    @Override
+    public List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        return catalog().search(categoryId, minPrice, maxPrice, subCategory);
+    }
+
+    @Override
+    public void streamSearch(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, Consumer<Product> consumer)
+    {
+        catalog().forEach(categoryId, minPrice, maxPrice, subCategory, consumer);
+    }
+
+    @Override
+    public ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                  ProductSort sort, ProductCursor after, int limit)
+    {
+        return catalog().page(categoryId, minPrice, maxPrice, subCategory, sort, after, limit);
+    }
+
+    @Override
+    public List<Product> listByCategoryId(int categoryId)
+    {
+        return catalog().listByCategoryId(categoryId);
+    }
+
+    @Override
+    public Product getById(int productId)
+    {
+        return catalog().get(productId);
+    }
+
+    @Override
+    public List<Product> getByIds(Collection<Integer> productIds)
+    {
+        ProductCatalog current = catalog();
+        return new HashSet<>(productIds).stream()
+                                        .sorted()
+                                        .map(current::get)
+                                        .filter(Objects::nonNull)
+                                        .toList();
+    }
+
+    @Override
+    public synchronized Product create(Product product)
+    {
+        Product created = delegate.create(product);
+
+        if (created != null)
+        {
+            saved(created);
+        }
+
+        return created;
+    }
+
+    @Override
+    public synchronized List<Product> createAll(List<Product> products)
+    {
+        List<Product> created = delegate.createAll(products);
+
+        // one snapshot for the whole import; the rows are taken as written rather than re-read
+        catalog = catalog().with(created);
+        listeners.forEach(listener -> listener.productsSaved(created));
+
+        return created;
+    }
+
+    @Override
+    public synchronized void update(int productId, Product product)
+    {
+        delegate.update(productId, product);
+        refresh(productId);
+    }
+
+    @Override
+    public synchronized List<ProductAdjustmentResult> adjustAll(List<ProductAdjustment> adjustments)
+    {
+        List<ProductAdjustmentResult> results = delegate.adjustAll(adjustments);
+
+        // the results carry the stored stock and price, so the snapshot is patched without a re-read
+        Map<Integer, Product> changed = new LinkedHashMap<>();
+        ProductCatalog current = catalog();
+        for (ProductAdjustmentResult result : results)
+        {
+            Product product = current.get(result.getProductId());
+            if (result.getStatus() != ProductAdjustmentResult.Status.UPDATED || product == null) continue;
+
+            changed.put(product.getProductId(), copy(product, result.getPrice(), result.getStock()));
+        }
+
+        if (!changed.isEmpty())
+        {
+            List<Product> saved = new ArrayList<>(changed.values());
+            catalog = current.with(saved);
+            listeners.forEach(listener -> listener.productsSaved(saved));
+        }
+
+        return results;
+    }
+
+    @Override
+    public synchronized void delete(int productId)
+    {
+        delegate.delete(productId);
+        deleted(productId);
+    }
+
+    // the stock is re-read rather than worked out from the quantities sold: the checkout committed before this
+    // call, so a write that ran in between may already hold the new stock. Reading under the lock keeps the
+    // snapshot in the order the writes reached it, and only the stock is patched, so nothing is re-sorted
+    @Override
+    public synchronized void stockTaken(Collection<Integer> productIds)
+    {
+        ProductCatalog current = catalog();
+        List<Product> changed = new ArrayList<>(productIds.size());
+        for (Product stored : delegate.getByIds(productIds))
+        {
+            Product product = current.get(stored.getProductId());
+            if (product != null && product.getStock() != stored.getStock())
+            {
+                changed.add(copy(product, product.getPrice(), stored.getStock()));
+            }
+        }
+
+        if (!changed.isEmpty())
+        {
+            catalog = current.withStock(changed);
+            listeners.forEach(listener -> listener.stockChanged(changed));
+        }
+    }
+
+    // re-read the row so the snapshot holds exactly what the database stored
+    private void refresh(int productId)
+    {
+        Product stored = delegate.getById(productId);
+
+        if (stored == null) deleted(productId);
+        else saved(stored);
+    }
+
+    private static Product copy(Product product, BigDecimal price, int stock)
+    {
+        return new Product(product.getProductId(), product.getName(), price, product.getCategoryId(),
+                product.getDescription(), product.getSubCategory(), stock, product.isFeatured(), product.getImageUrl());
+    }
+
+    private void saved(Product product)
+    {
+        catalog = catalog().with(product);
+        listeners.forEach(listener -> listener.productSaved(product));
+    }
+
+    private void deleted(int productId)
+    {
+        catalog = catalog().without(productId);
+        listeners.forEach(listener -> listener.productDeleted(productId));
+    }
+
+    private ProductCatalog catalog()
+    {
+        ProductCatalog current = catalog;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                if (catalog == null) reload();
+                current = catalog;
+            }
+        }
+        return current;
+    }
+}
@@ -0,0 +1,406 @@
+package org.yearup.data.memory;
+
+import org.yearup.models.Product;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductPage;
+import org.yearup.models.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, read-optimized view of the products table.
+ *
+ * Products are stored in product_id order and addressed by their position in that order. Each category and
+ * subcategory has a sorted posting list of positions, and a price-sorted permutation allows range lookups by
+ * binary search. A search intersects the postings of the supplied filters and never touches the database.
+ * Pages are read by seeking into the id, price or name ordering and walking forward from the cursor.
+ */
+class ProductCatalog
+{
+    private static final int[] EMPTY = new int[0];
+
+    private final Product[] products;
+    private final int[] productIds;
+    private final Map<Integer, int[]> byCategory;
+    private final Map<String, int[]> bySubCategory;
+    private final BigDecimal[] sortedPrices;
+    private final int[] idOrder;
+    private final int[] priceOrder;
+    private final int[] nameOrder;
+
+    ProductCatalog(Collection<Product> source)
+    {
+        products = source.toArray(new Product[0]);
+        Arrays.sort(products, Comparator.comparingInt(Product::getProductId));
+
+        productIds = new int[products.length];
+        Map<Integer, List<Integer>> categories = new HashMap<>();
+        Map<String, List<Integer>> subCategories = new HashMap<>();
+
+        for (int position = 0; position < products.length; position++)
+        {
+            Product product = products[position];
+            productIds[position] = product.getProductId();
+            categories.computeIfAbsent(product.getCategoryId(), k -> new ArrayList<>()).add(position);
+
+            if (product.getSubCategory() != null)
+            {
+                subCategories.computeIfAbsent(subCategoryKey(product.getSubCategory()), k -> new ArrayList<>()).add(position);
+            }
+        }
+
+        byCategory = toPostings(categories);
+        bySubCategory = toPostings(subCategories);
+
+        idOrder = sortedPositions(ProductSort.ID);
+        priceOrder = sortedPositions(ProductSort.PRICE);
+        nameOrder = sortedPositions(ProductSort.NAME);
+
+        sortedPrices = new BigDecimal[priceOrder.length];
+        for (int i = 0; i < priceOrder.length; i++)
+        {
+            sortedPrices[i] = products[priceOrder[i]].getPrice();
+        }
+    }
+
+    // shares every index of the source catalog; only valid when no indexed field changed
+    private ProductCatalog(ProductCatalog source, Product[] products)
+    {
+        this.products = products;
+        this.productIds = source.productIds;
+        this.byCategory = source.byCategory;
+        this.bySubCategory = source.bySubCategory;
+        this.sortedPrices = source.sortedPrices;
+        this.idOrder = source.idOrder;
+        this.priceOrder = source.priceOrder;
+        this.nameOrder = source.nameOrder;
+    }
+
+    private int[] sortedPositions(ProductSort sort)
+    {
+        Comparator<Product> comparator = comparator(sort);
+        return IntStream.range(0, products.length)
+                        .boxed()
+                        .sorted((left, right) -> comparator.compare(products[left], products[right]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+    }
+
+    List<Product> all()
+    {
+        return List.of(products);
+    }
+
+    Product get(int productId)
+    {
+        int position = Arrays.binarySearch(productIds, productId);
+        return position >= 0 ? products[position] : null;
+    }
+
+    List<Product> listByCategoryId(int categoryId)
+    {
+        return toProducts(byCategory.getOrDefault(categoryId, EMPTY));
+    }
+
+    List<Product> search(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        int[] positions = matching(categoryId, minPrice, maxPrice, subCategory);
+        return positions == null ? all() : toProducts(positions);
+    }
+
+    void forEach(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, Consumer<Product> consumer)
+    {
+        int[] positions = matching(categoryId, minPrice, maxPrice, subCategory);
+
+        if (positions == null)
+        {
+            for (Product product : products)
+            {
+                consumer.accept(product);
+            }
+            return;
+        }
+
+        for (int position : positions)
+        {
+            consumer.accept(products[position]);
+        }
+    }
+
+    ProductPage page(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                     ProductSort sort, ProductCursor after, int limit)
+    {
+        int[] order = order(sort);
+        int from = after == null ? 0 : seek(order, sort, after);
+        int to = order.length;
+
+        // the price ordering is also the price index, so a price range narrows the walk itself
+        if (sort == ProductSort.PRICE)
+        {
+            if (minPrice != null) from = Math.max(from, lowerBound(minPrice));
+            if (maxPrice != null) to = upperBound(maxPrice);
+        }
+
+        String subCategoryKey = subCategory == null || subCategory.isEmpty() ? null : subCategoryKey(subCategory);
+
+        // walk the ordering from the cursor and stop at the first match past the page
+        List<Product> results = new ArrayList<>(Math.min(limit + 1, products.length));
+        for (int i = from; i < to && results.size() <= limit; i++)
+        {
+            Product product = products[order[i]];
+            if (matches(product, categoryId, minPrice, maxPrice, subCategoryKey))
+            {
+                results.add(product);
+            }
+        }
+
+        if (results.size() <= limit)
+        {
+            return new ProductPage(results, null);
+        }
+
+        results.remove(limit);
+        return new ProductPage(results, ProductCursor.after(results.get(limit - 1), sort));
+    }
+
+    private static boolean matches(Product product, Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategoryKey)
+    {
+        return (categoryId == null || product.getCategoryId() == categoryId)
+                && (subCategoryKey == null || (product.getSubCategory() != null && subCategoryKey.equals(subCategoryKey(product.getSubCategory()))))
+                && inRange(product.getPrice(), minPrice, maxPrice);
+    }
+
+    // sorted positions of the matching products, or null when no filter was supplied
+    private int[] matching(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        int[] candidates = null;
+
+        if (categoryId != null)
+        {
+            candidates = byCategory.getOrDefault(categoryId, EMPTY);
+        }
+
+        if (subCategory != null && !subCategory.isEmpty())
+        {
+            candidates = intersect(candidates, bySubCategory.getOrDefault(subCategoryKey(subCategory), EMPTY));
+        }
+
+        if (minPrice == null && maxPrice == null)
+        {
+            return candidates;
+        }
+
+        int from = minPrice == null ? 0 : lowerBound(minPrice);
+        int to = maxPrice == null ? sortedPrices.length : upperBound(maxPrice);
+        if (from >= to)
+        {
+            return EMPTY;
+        }
+
+        // a short posting list is cheaper to check directly than materializing the whole price range
+        if (candidates != null && candidates.length < to - from)
+        {
+            return Arrays.stream(candidates)
+                         .filter(position -> inRange(products[position].getPrice(), minPrice, maxPrice))
+                         .toArray();
+        }
+
+        BitSet inPriceRange = new BitSet(products.length);
+        for (int i = from; i < to; i++)
+        {
+            inPriceRange.set(priceOrder[i]);
+        }
+
+        if (candidates != null)
+        {
+            BitSet filter = new BitSet(products.length);
+            for (int position : candidates)
+            {
+                filter.set(position);
+            }
+            inPriceRange.and(filter);
+        }
+
+        return inPriceRange.stream().toArray();
+    }
+
+    private int[] order(ProductSort sort)
+    {
+        return switch (sort)
+        {
+            case PRICE -> priceOrder;
+            case NAME -> nameOrder;
+            case ID -> idOrder;
+        };
+    }
+
+    // first index in the ordering that sorts after the cursor
+    private int seek(int[] order, ProductSort sort, ProductCursor after)
+    {
+        Comparator<Product> comparator = comparator(sort);
+        Product key = new Product();
+        key.setProductId(after.getProductId());
+        if (sort == ProductSort.PRICE) key.setPrice(after.getPrice());
+        if (sort == ProductSort.NAME) key.setName(after.getValue());
+
+        int low = 0;
+        int high = order.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(products[order[mid]], key) <= 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static Comparator<Product> comparator(ProductSort sort)
+    {
+        Comparator<Product> byId = Comparator.comparingInt(Product::getProductId);
+        return switch (sort)
+        {
+            case PRICE -> Comparator.comparing(Product::getPrice).thenComparing(byId);
+            case NAME -> Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+            case ID -> byId;
+        };
+    }
+
+    ProductCatalog with(Product product)
+    {
+        return with(List.of(product));
+    }
+
+    ProductCatalog with(Collection<Product> changed)
+    {
+        Map<Integer, Product> copy = toMap();
+        changed.forEach(product -> copy.put(product.getProductId(), product));
+        return new ProductCatalog(copy.values());
+    }
+
+    /**
+     * A catalog where the given products, which differ from the stored ones in stock only, replace them.
+     * Stock is not indexed, so the indexes are shared and nothing is sorted.
+     */
+    ProductCatalog withStock(Collection<Product> changed)
+    {
+        Product[] copy = products.clone();
+        for (Product product : changed)
+        {
+            int position = Arrays.binarySearch(productIds, product.getProductId());
+            if (position >= 0) copy[position] = product;
+        }
+        return new ProductCatalog(this, copy);
+    }
+
+    ProductCatalog without(int productId)
+    {
+        if (get(productId) == null)
+        {
+            return this;
+        }
+
+        Map<Integer, Product> copy = toMap();
+        copy.remove(productId);
+        return new ProductCatalog(copy.values());
+    }
+
+    private Map<Integer, Product> toMap()
+    {
+        Map<Integer, Product> map = new HashMap<>();
+        for (Product product : products)
+        {
+            map.put(product.getProductId(), product);
+        }
+        return map;
+    }
+
+    private List<Product> toProducts(int[] positions)
+    {
+        List<Product> results = new ArrayList<>(positions.length);
+        for (int position : positions)
+        {
+            results.add(products[position]);
+        }
+        return results;
+    }
+
+    // first index whose price is >= minPrice
+    private int lowerBound(BigDecimal minPrice)
+    {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid].compareTo(minPrice) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // first index whose price is > maxPrice
+    private int upperBound(BigDecimal maxPrice)
+    {
+        int low = 0;
+        int high = sortedPrices.length;
+        while (low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if (sortedPrices[mid].compareTo(maxPrice) <= 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static boolean inRange(BigDecimal price, BigDecimal minPrice, BigDecimal maxPrice)
+    {
+        return (minPrice == null || price.compareTo(minPrice) >= 0)
+                && (maxPrice == null || price.compareTo(maxPrice) <= 0);
+    }
+
+    private static int[] intersect(int[] left, int[] right)
+    {
+        if (left == null) return right;
+
+        int[] result = new int[Math.min(left.length, right.length)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < left.length && j < right.length)
+        {
+            if (left[i] < right[j]) i++;
+            else if (left[i] > right[j]) j++;
+            else
+            {
+                result[count++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static <K> Map<K, int[]> toPostings(Map<K, List<Integer>> lists)
+    {
+        Map<K, int[]> postings = new HashMap<>();
+        lists.forEach((key, positions) -> postings.put(key, positions.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+
+    // MySQL compares subcategory with a case-insensitive collation, so the index does too
+    private static String subCategoryKey(String subCategory)
+    {
+        return subCategory.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,85 @@
+package org.yearup.data.memory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Stock count split over several cells that are updated with compare-and-set, so buyers of the same
+ * product mostly touch different cells instead of all contending for one. A take starts at a random
+ * cell and moves on to the next ones when a cell runs dry; the total can never go below zero.
+ */
+class StripedStockCounter
+{
+    // cells sit 64 bytes apart so two cpus updating neighbouring cells don't share a cache line
+    private static final int PADDING = 16;
+
+    private final int stripes;
+    private final AtomicIntegerArray cells;
+
+    StripedStockCounter(int stock, int stripes)
+    {
+        this.stripes = stripes;
+        this.cells = new AtomicIntegerArray(stripes * PADDING);
+
+        for (int stripe = 0; stripe < stripes; stripe++)
+        {
+            cells.set(stripe * PADDING, stock / stripes + (stripe < stock % stripes ? 1 : 0));
+        }
+    }
+
+    /**
+     * Take the quantity if that much is left. A take that races with others for the last few units
+     * can fail even though a later one would succeed.
+     */
+    boolean tryTake(int quantity)
+    {
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        int remaining = quantity;
+
+        for (int i = 0; i < stripes && remaining > 0; i++)
+        {
+            int cell = ((start + i) % stripes) * PADDING;
+            while (true)
+            {
+                int available = cells.get(cell);
+                if (available == 0) break;
+
+                int take = Math.min(available, remaining);
+                if (cells.compareAndSet(cell, available, available - take))
+                {
+                    remaining -= take;
+                    break;
+                }
+            }
+        }
+
+        if (remaining > 0)
+        {
+            // not enough in total; put back what was taken
+            give(start, quantity - remaining);
+            return false;
+        }
+        return true;
+    }
+
+    void giveBack(int quantity)
+    {
+        give(ThreadLocalRandom.current().nextInt(stripes), quantity);
+    }
+
+    // the sum of the cells; only exact while nothing is being taken or given back
+    int available()
+    {
+        int total = 0;
+        for (int stripe = 0; stripe < stripes; stripe++)
+        {
+            total += cells.get(stripe * PADDING);
+        }
+        return total;
+    }
+
+    private void give(int stripe, int quantity)
+    {
+        if (quantity > 0) cells.addAndGet(stripe * PADDING, quantity);
+    }
+}
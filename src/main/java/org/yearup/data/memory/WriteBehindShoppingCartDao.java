@@ -0,0 +1,462 @@
+package org.yearup.data.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yearup.data.ProductDao;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.models.CartOperation;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.ShoppingCartItem;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps active carts in memory and writes them to the wrapped dao in the background.
+ *
+ * A cart is loaded from the wrapped dao on first use and from then on every read and write is
+ * served from memory, guarded by one of a fixed set of locks chosen by user id. Changed lines are
+ * only marked dirty, so any number of changes to a line between flushes costs one write. Dirty
+ * carts are flushed on an interval, all of them in one batch, on {@link #flush(int)} (checkout) and
+ * when the dao is closed, so a clean shutdown loses nothing. Clean carts that sit idle are dropped
+ * from memory.
+ *
+ * The in-memory copy is authoritative, so every instance of the application must own its users'
+ * carts; with several instances behind a load balancer, sessions need to be sticky.
+ */
+public class WriteBehindShoppingCartDao implements ShoppingCartDao, AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindShoppingCartDao.class);
+    private static final int STRIPES = 64;
+
+    private final ShoppingCartDao delegate;
+    private final ProductDao productDao;
+    private final long idleNanos;
+    private final Object[] locks = new Object[STRIPES];
+    private final Map<Integer, Cart> carts = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    public WriteBehindShoppingCartDao(ShoppingCartDao delegate, ProductDao productDao, Duration flushInterval, Duration idleTimeout)
+    {
+        this.delegate = delegate;
+        this.productDao = productDao;
+        this.idleNanos = idleTimeout.toNanos();
+
+        for (int i = 0; i < STRIPES; i++)
+        {
+            locks[i] = new Object();
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ShoppingCart getByUserId(int userId)
+    {
+        synchronized (lock(userId))
+        {
+            Cart cart = cart(userId);
+
+            ShoppingCart shoppingCart = new ShoppingCart();
+            cart.lines.forEach((productId, quantity) -> {
+                ShoppingCartItem item = item(productId, quantity);
+                if (item != null) shoppingCart.add(item);
+            });
+            return shoppingCart;
+        }
+    }
+
+    @Override
+    public ShoppingCartItem addProduct(int userId, int productId)
+    {
+        requireProduct(productId);
+
+        synchronized (lock(userId))
+        {
+            Cart cart = cart(userId);
+            int quantity = cart.lines.merge(productId, 1, Integer::sum);
+            cart.dirty.add(productId);
+            return item(productId, quantity);
+        }
+    }
+
+    @Override
+    public ShoppingCartItem updateQuantity(int userId, int productId, int quantity)
+    {
+        synchronized (lock(userId))
+        {
+            Cart cart = cart(userId);
+            if (!cart.lines.containsKey(productId))
+            {
+                return null;
+            }
+
+            cart.lines.put(productId, quantity);
+            cart.dirty.add(productId);
+            return item(productId, quantity);
+        }
+    }
+
+    @Override
+    public void apply(int userId, List<CartOperation> operations)
+    {
+        for (CartOperation operation : operations)
+        {
+            if (operation.getOp() != CartOperation.Type.REMOVE) requireProduct(operation.getProductId());
+        }
+
+        synchronized (lock(userId))
+        {
+            Cart cart = cart(userId);
+            for (CartOperation operation : operations)
+            {
+                int productId = operation.getProductId();
+                switch (operation.getOp())
+                {
+                    case ADD -> cart.lines.merge(productId, operation.getQuantity() == null ? 1 : operation.getQuantity(), Integer::sum);
+                    case SET -> {
+                        if (operation.getQuantity() > 0) cart.lines.put(productId, operation.getQuantity());
+                        else cart.lines.remove(productId);
+                    }
+                    case REMOVE -> cart.lines.remove(productId);
+                }
+                cart.dirty.add(productId);
+            }
+        }
+    }
+
+    @Override
+    public void applyAll(Map<Integer, List<CartOperation>> operationsByUser)
+    {
+        operationsByUser.forEach(this::apply);
+    }
+
+    @Override
+    public void clearCart(int userId)
+    {
+        synchronized (lock(userId))
+        {
+            Cart cart = cart(userId);
+            cart.dirty.addAll(cart.lines.keySet());
+            cart.lines.clear();
+        }
+    }
+
+    @Override
+    public void removeProduct(int userId, int productId)
+    {
+        synchronized (lock(userId))
+        {
+            Cart cart = cart(userId);
+            if (cart.lines.remove(productId) != null)
+            {
+                cart.dirty.add(productId);
+            }
+        }
+    }
+
+    /**
+     * Write the user's pending changes to the wrapped dao now.
+     */
+    @Override
+    public void flush(int userId)
+    {
+        Cart cart = carts.get(userId);
+        if (cart != null)
+        {
+            flush(userId, cart);
+        }
+    }
+
+    /**
+     * Drop the user's cart from memory so the next read loads it from the wrapped dao.
+     * Changes that were not flushed yet, such as an add that came in after the checkout flushed,
+     * are written first so they are not lost.
+     */
+    @Override
+    public void evict(int userId)
+    {
+        Cart cart = carts.get(userId);
+        if (cart == null) return;
+
+        cart.flushLock.lock();
+        try
+        {
+            while (true)
+            {
+                flush(userId, cart);
+                synchronized (lock(userId))
+                {
+                    // a change that arrived during the flush is written on the next pass
+                    if (cart.dirty.isEmpty())
+                    {
+                        carts.remove(userId, cart);
+                        return;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            cart.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stop the background flusher and write every pending change.
+     */
+    @Override
+    public void close()
+    {
+        flusher.shutdown();
+        try
+        {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        flushAll();
+    }
+
+    // every dirty cart is written in one batch; if the batch fails, each cart is retried on its own
+    // so one cart that cannot be written does not hold back the others. Idle clean carts are dropped.
+    private void flushAll()
+    {
+        long now = System.nanoTime();
+        Map<Integer, Cart> flushing = new LinkedHashMap<>();
+        Map<Integer, List<CartOperation>> operationsByUser = new LinkedHashMap<>();
+
+        try
+        {
+            for (Map.Entry<Integer, Cart> entry : carts.entrySet())
+            {
+                int userId = entry.getKey();
+                Cart cart = entry.getValue();
+                Set<Integer> deleted = deletedProducts(userId, cart);
+
+                // only carts with changes to write stay locked for the batch; a clean cart is let go at once,
+                // so a checkout's flush or evict of it does not wait on the database
+                cart.flushLock.lock();
+                boolean held = false;
+                try
+                {
+                    synchronized (lock(userId))
+                    {
+                        List<CartOperation> operations = takeDirty(cart, deleted);
+                        if (!operations.isEmpty())
+                        {
+                            operationsByUser.put(userId, operations);
+                            flushing.put(userId, cart);
+                            held = true;
+                        }
+                        else if (now - cart.lastUsed > idleNanos)
+                        {
+                            carts.remove(userId, cart);
+                        }
+                    }
+                }
+                finally
+                {
+                    if (!held) cart.flushLock.unlock();
+                }
+            }
+
+            if (!operationsByUser.isEmpty())
+            {
+                try
+                {
+                    delegate.applyAll(operationsByUser);
+                }
+                catch (RuntimeException ex)
+                {
+                    log.warn("Could not flush {} carts in one batch, flushing them one by one", operationsByUser.size(), ex);
+                    operationsByUser.forEach((userId, operations) -> retry(userId, flushing.get(userId), operations));
+                }
+            }
+
+            for (Map.Entry<Integer, Cart> entry : flushing.entrySet())
+            {
+                int userId = entry.getKey();
+                Cart cart = entry.getValue();
+
+                synchronized (lock(userId))
+                {
+                    if (cart.dirty.isEmpty() && now - cart.lastUsed > idleNanos)
+                    {
+                        carts.remove(userId, cart);
+                    }
+                }
+            }
+        }
+        finally
+        {
+            flushing.values().forEach(cart -> cart.flushLock.unlock());
+        }
+    }
+
+    private void retry(int userId, Cart cart, List<CartOperation> operations)
+    {
+        try
+        {
+            delegate.apply(userId, operations);
+        }
+        catch (RuntimeException ex)
+        {
+            // the lines stay dirty and are retried on the next run
+            log.warn("Could not flush the cart of user {}", userId, ex);
+            markDirty(userId, cart, operations);
+        }
+    }
+
+    private void flush(int userId, Cart cart)
+    {
+        Set<Integer> deleted = deletedProducts(userId, cart);
+
+        // one flush per cart at a time, so an older snapshot can never overwrite a newer one
+        cart.flushLock.lock();
+        try
+        {
+            List<CartOperation> operations;
+            synchronized (lock(userId))
+            {
+                operations = takeDirty(cart, deleted);
+            }
+            if (operations.isEmpty()) return;
+
+            try
+            {
+                delegate.apply(userId, operations);
+            }
+            catch (RuntimeException ex)
+            {
+                markDirty(userId, cart, operations);
+                throw ex;
+            }
+        }
+        finally
+        {
+            cart.flushLock.unlock();
+        }
+    }
+
+    // A line whose product was deleted since it was added would fail its foreign key on every flush, so it
+    // is dropped from the cart instead of written. The products are looked up before the user's lock is
+    // taken; a line that turns dirty after the lookup is checked on the next flush.
+    private Set<Integer> deletedProducts(int userId, Cart cart)
+    {
+        List<Integer> productIds;
+        synchronized (lock(userId))
+        {
+            productIds = new ArrayList<>(cart.dirty);
+        }
+
+        Set<Integer> deleted = new HashSet<>();
+        for (int productId : productIds)
+        {
+            if (productDao.getById(productId) == null) deleted.add(productId);
+        }
+        return deleted;
+    }
+
+    // caller holds the user's lock
+    private List<CartOperation> takeDirty(Cart cart, Set<Integer> deleted)
+    {
+        List<CartOperation> operations = new ArrayList<>(cart.dirty.size());
+        for (int productId : cart.dirty)
+        {
+            Integer quantity = cart.lines.get(productId);
+            if (quantity != null && deleted.contains(productId))
+            {
+                cart.lines.remove(productId);
+                quantity = null;
+            }
+
+            operations.add(quantity == null
+                    ? new CartOperation(CartOperation.Type.REMOVE, productId, null)
+                    : new CartOperation(CartOperation.Type.SET, productId, quantity));
+        }
+        cart.dirty.clear();
+        return operations;
+    }
+
+    private void markDirty(int userId, Cart cart, List<CartOperation> operations)
+    {
+        synchronized (lock(userId))
+        {
+            operations.forEach(operation -> cart.dirty.add(operation.getProductId()));
+        }
+    }
+
+    // caller holds the user's lock
+    private Cart cart(int userId)
+    {
+        Cart cart = carts.get(userId);
+        if (cart == null)
+        {
+            cart = new Cart();
+            for (ShoppingCartItem item : delegate.getByUserId(userId).getItems().values())
+            {
+                cart.lines.put(item.getProductId(), item.getQuantity());
+            }
+            carts.put(userId, cart);
+        }
+
+        cart.lastUsed = System.nanoTime();
+        return cart;
+    }
+
+    private ShoppingCartItem item(int productId, int quantity)
+    {
+        Product product = productDao.getById(productId);
+        if (product == null)
+        {
+            return null;
+        }
+
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    // a line for an unknown product would fail its foreign key on every flush, so it is refused up front
+    private void requireProduct(int productId)
+    {
+        if (productDao.getById(productId) == null)
+        {
+            throw new IllegalArgumentException("Unknown product " + productId);
+        }
+    }
+
+    private Object lock(int userId)
+    {
+        return locks[Math.floorMod(userId, STRIPES)];
+    }
+
+    private static class Cart
+    {
+        private final Map<Integer, Integer> lines = new LinkedHashMap<>();
+        private final Set<Integer> dirty = new HashSet<>();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private long lastUsed;
+    }
+}
@@ -0,0 +1,328 @@
+package org.yearup.data.mysql;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.yearup.data.CheckoutDao;
+import org.yearup.data.CheckoutException;
+import org.yearup.data.CheckoutResult;
+import org.yearup.data.memory.FlashSaleStock;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the whole checkout on one connection: profile and cart reads, the stock reservation, the
+ * order insert, a single batched insert of the line items and the cart delete all commit or roll
+ * back together.
+ *
+ * Stock is taken with conditional updates, so a line only succeeds while enough stock is left and
+ * concurrent checkouts of the same product can never sell more than there is. Products in a flash
+ * sale are reserved against their in-memory {@link FlashSaleStock} counter instead, and given back
+ * if the checkout does not commit.
+ *
+ * {@link #checkoutAll} places a batch of orders in one transaction, so the batch pays for one
+ * commit; a savepoint per order lets an order that fails be undone on its own.
+ */
+@Component
+public class MySqlCheckoutDao extends MySqlDaoBase implements CheckoutDao
+{
+    private static final String PROFILE_SQL = "SELECT address, city, state, zip FROM profiles WHERE user_id = ?";
+    // the cart rows are locked so a second checkout of the same cart waits and then finds it empty
+    private static final String CART_SQL = "SELECT sc.product_id, sc.quantity, p.price " +
+                                           "FROM shopping_cart sc " +
+                                           "JOIN products p ON p.product_id = sc.product_id " +
+                                           "WHERE sc.user_id = ? " +
+                                           "ORDER BY sc.product_id " +
+                                           "FOR UPDATE OF sc";
+    private static final String STOCK_SQL = "UPDATE products SET stock = stock - ? WHERE product_id = ? AND stock >= ?";
+    private static final String ORDER_SQL = "INSERT INTO orders (user_id, date, address, city, state, zip, shipping_amount) " +
+                                            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String LINE_ITEM_SQL = "INSERT INTO order_line_items (order_id, product_id, sales_price, quantity, discount) " +
+                                                "VALUES (?, ?, ?, ?, ?)";
+    private static final String CLEAR_SQL = "DELETE FROM shopping_cart WHERE user_id = ?";
+
+    private final FlashSaleStock flashSaleStock;
+
+    public MySqlCheckoutDao(DataSource dataSource)
+    {
+        this(dataSource, null);
+    }
+
+    @Autowired
+    public MySqlCheckoutDao(DataSource dataSource, @Nullable FlashSaleStock flashSaleStock)
+    {
+        super(dataSource);
+        this.flashSaleStock = flashSaleStock;
+    }
+
+    @Override
+    public Order checkout(int userId, BigDecimal shippingAmount)
+    {
+        try (Connection connection = getConnection())
+        {
+            // join the caller's transaction if one is open, otherwise run in our own
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            Map<Integer, Integer> flashSaleReserved = new HashMap<>();
+
+            try
+            {
+                Order order = placeOrder(connection, userId, shippingAmount, flashSaleReserved);
+
+                if (autoCommit) connection.commit();
+                return order;
+            }
+            catch (SQLException | RuntimeException e)
+            {
+                if (autoCommit) connection.rollback();
+                releaseFlashSaleStock(flashSaleReserved);
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<CheckoutResult> checkoutAll(List<Integer> userIds, BigDecimal shippingAmount)
+    {
+        try (Connection connection = getConnection())
+        {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            Map<Integer, Integer> flashSaleReserved = new HashMap<>();
+
+            try
+            {
+                List<CheckoutResult> results = new ArrayList<>();
+                for (int userId : userIds)
+                {
+                    // a savepoint per order, so one failed order is undone without the rest of the batch
+                    Savepoint savepoint = connection.setSavepoint();
+                    Map<Integer, Integer> reserved = new HashMap<>();
+                    try
+                    {
+                        results.add(CheckoutResult.placed(placeOrder(connection, userId, shippingAmount, reserved)));
+                        reserved.forEach((productId, quantity) -> flashSaleReserved.merge(productId, quantity, Integer::sum));
+                    }
+                    catch (CheckoutException e)
+                    {
+                        connection.rollback(savepoint);
+                        releaseFlashSaleStock(reserved);
+                        results.add(CheckoutResult.failed(e));
+                    }
+                    catch (SQLException | RuntimeException e)
+                    {
+                        releaseFlashSaleStock(reserved);
+                        throw e;
+                    }
+                    connection.releaseSavepoint(savepoint);
+                }
+
+                if (autoCommit) connection.commit();
+                return results;
+            }
+            catch (SQLException | RuntimeException e)
+            {
+                if (autoCommit) connection.rollback();
+                releaseFlashSaleStock(flashSaleReserved);
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // writes one order on the connection without committing; flash-sale stock taken is added to flashSaleReserved
+    private Order placeOrder(Connection connection, int userId, BigDecimal shippingAmount, Map<Integer, Integer> flashSaleReserved) throws SQLException
+    {
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setDate(LocalDateTime.now());
+        order.setShippingAmount(shippingAmount);
+
+        try (PreparedStatement statement = connection.prepareStatement(PROFILE_SQL))
+        {
+            statement.setInt(1, userId);
+            ResultSet row = statement.executeQuery();
+
+            if (!row.next())
+            {
+                throw new CheckoutException(CheckoutException.Reason.PROFILE_NOT_FOUND,
+                        "Profile not found. Please update your profile before checking out.");
+            }
+
+            order.setAddress(row.getString("address"));
+            order.setCity(row.getString("city"));
+            order.setState(row.getString("state"));
+            order.setZip(row.getString("zip"));
+        }
+
+        List<OrderLineItem> lineItems = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(CART_SQL))
+        {
+            statement.setInt(1, userId);
+            ResultSet row = statement.executeQuery();
+
+            while (row.next())
+            {
+                OrderLineItem lineItem = new OrderLineItem();
+                lineItem.setProductId(row.getInt("product_id"));
+                lineItem.setQuantity(row.getInt("quantity"));
+                lineItem.setSalesPrice(row.getBigDecimal("price"));
+                lineItem.setDiscount(BigDecimal.ZERO);
+                lineItems.add(lineItem);
+            }
+        }
+
+        if (lineItems.isEmpty())
+        {
+            throw new CheckoutException(CheckoutException.Reason.CART_EMPTY, "Shopping cart is empty.");
+        }
+
+        flashSaleReserved.putAll(reserveFlashSaleStock(lineItems));
+        reserveStock(connection, lineItems);
+
+        try (PreparedStatement statement = connection.prepareStatement(ORDER_SQL, PreparedStatement.RETURN_GENERATED_KEYS))
+        {
+            statement.setInt(1, order.getUserId());
+            statement.setTimestamp(2, Timestamp.valueOf(order.getDate()));
+            statement.setString(3, order.getAddress());
+            statement.setString(4, order.getCity());
+            statement.setString(5, order.getState());
+            statement.setString(6, order.getZip());
+            statement.setBigDecimal(7, order.getShippingAmount());
+            statement.executeUpdate();
+
+            ResultSet generatedKeys = statement.getGeneratedKeys();
+            generatedKeys.next();
+            order.setOrderId(generatedKeys.getInt(1));
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(LINE_ITEM_SQL, PreparedStatement.RETURN_GENERATED_KEYS))
+        {
+            for (OrderLineItem lineItem : lineItems)
+            {
+                lineItem.setOrderId(order.getOrderId());
+
+                statement.setInt(1, lineItem.getOrderId());
+                statement.setInt(2, lineItem.getProductId());
+                statement.setBigDecimal(3, lineItem.getSalesPrice());
+                statement.setInt(4, lineItem.getQuantity());
+                statement.setBigDecimal(5, lineItem.getDiscount());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+
+            ResultSet generatedKeys = statement.getGeneratedKeys();
+            for (OrderLineItem lineItem : lineItems)
+            {
+                if (generatedKeys.next()) lineItem.setOrderLineItemId(generatedKeys.getInt(1));
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(CLEAR_SQL))
+        {
+            statement.setInt(1, userId);
+            statement.executeUpdate();
+        }
+
+        order.setLineItems(lineItems);
+        return order;
+    }
+
+    // takes the flash-sale lines from their counters, all or none; returns what was taken
+    private Map<Integer, Integer> reserveFlashSaleStock(List<OrderLineItem> lineItems)
+    {
+        if (flashSaleStock == null) return Map.of();
+
+        Map<Integer, Integer> quantities = new HashMap<>();
+        for (OrderLineItem lineItem : lineItems)
+        {
+            if (flashSaleStock.covers(lineItem.getProductId())) quantities.put(lineItem.getProductId(), lineItem.getQuantity());
+        }
+
+        if (!quantities.isEmpty())
+        {
+            List<Integer> shortProductIds = flashSaleStock.reserve(quantities);
+            if (!shortProductIds.isEmpty()) throw outOfStock(shortProductIds);
+        }
+        return quantities;
+    }
+
+    // the lines are in product_id order, so concurrent checkouts lock the product rows in the same order
+    private void reserveStock(Connection connection, List<OrderLineItem> lineItems) throws SQLException
+    {
+        try (PreparedStatement statement = connection.prepareStatement(STOCK_SQL))
+        {
+            boolean batched = false;
+            for (OrderLineItem lineItem : lineItems)
+            {
+                if (isFlashSale(lineItem.getProductId())) continue;
+
+                batched = true;
+                statement.setInt(1, lineItem.getQuantity());
+                statement.setInt(2, lineItem.getProductId());
+                statement.setInt(3, lineItem.getQuantity());
+                statement.addBatch();
+            }
+
+            if (!batched) return;
+            int[] updated = statement.executeBatch();
+
+            List<Integer> shortProductIds = new ArrayList<>();
+            int line = 0;
+            for (OrderLineItem lineItem : lineItems)
+            {
+                if (isFlashSale(lineItem.getProductId())) continue;
+                if (updated[line++] == 0) shortProductIds.add(lineItem.getProductId());
+            }
+
+            if (!shortProductIds.isEmpty()) throw outOfStock(shortProductIds);
+        }
+    }
+
+    private void releaseFlashSaleStock(Map<Integer, Integer> reserved)
+    {
+        if (flashSaleStock != null && !reserved.isEmpty()) flashSaleStock.release(reserved);
+    }
+
+    private boolean isFlashSale(int productId)
+    {
+        return flashSaleStock != null && flashSaleStock.covers(productId);
+    }
+
+    private static CheckoutException outOfStock(List<Integer> shortProductIds)
+    {
+        String products = shortProductIds.stream().map(String::valueOf).collect(Collectors.joining(", "));
+        return new CheckoutException(CheckoutException.Reason.OUT_OF_STOCK,
+                "Not enough stock for product(s) " + products + ".", shortProductIds);
+    }
+}
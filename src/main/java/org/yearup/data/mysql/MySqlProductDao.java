@@ -2,17 +2,35 @@ package org.yearup.data.mysql;
 
 import org.springframework.stereotype.Component;
 import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductPage;
+import org.yearup.models.ProductSort;
 import org.yearup.data.ProductDao;
 
 import javax.sql.DataSource;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class MySqlProductDao extends MySqlDaoBase implements ProductDao
 {
+    // Connector/J streams rows one at a time for this fetch size instead of buffering the whole result set.
+    // A positive fetch size is only honoured with useCursorFetch, which would switch every statement to
+    // server-side prepares.
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    // rows per executeBatch in createAll
+    private static final int BATCH_SIZE = 1000;
+
     public MySqlProductDao(DataSource dataSource)
     {
         super(dataSource);
@@ -23,28 +41,16 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
     {
         List<Product> products = new ArrayList<>();
 
-        String sql = "SELECT * FROM products " +
-                "WHERE (category_id = ? OR ? = -1) " +
-                "   AND (price >= ? OR ? = -1) " +
-                "   AND (price <= ? OR ? = -1) " +
-                "   AND (subcategory = ? OR ? = '') ";
-
-        categoryId = categoryId == null ? -1 : categoryId;
-        minPrice = minPrice == null ? new BigDecimal("-1") : minPrice;
-        maxPrice = maxPrice == null ? new BigDecimal("-1") : maxPrice;
-        subCategory = subCategory == null ? "" : subCategory;
+        // only the filters that were supplied become predicates, so MySQL can pick
+        // the (category_id, price) or (subcategory, price) index for a range scan
+        List<Object> parameters = new ArrayList<>();
+        List<String> predicates = filterPredicates(parameters, categoryId, minPrice, maxPrice, subCategory);
+        String sql = "SELECT * FROM products" + where(predicates);
 
         try (Connection connection = getConnection())
         {
             PreparedStatement statement = connection.prepareStatement(sql);
-            statement.setInt(1, categoryId);
-            statement.setInt(2, categoryId);
-            statement.setBigDecimal(3, minPrice);
-            statement.setBigDecimal(4, minPrice);
-            statement.setBigDecimal(5, maxPrice);
-            statement.setBigDecimal(6, maxPrice);
-            statement.setString(7, subCategory);
-            statement.setString(8, subCategory);
+            setParameters(statement, parameters);
 
             ResultSet row = statement.executeQuery();
 
@@ -62,6 +68,101 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         return products;
     }
 
+    // each row is handed to the consumer as it is read, so the listing is never held in memory; the
+    // connection stays busy until the consumer has seen the last row
+    @Override
+    public void streamSearch(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, Consumer<Product> consumer)
+    {
+        List<Object> parameters = new ArrayList<>();
+        List<String> predicates = filterPredicates(parameters, categoryId, minPrice, maxPrice, subCategory);
+        String sql = "SELECT * FROM products" + where(predicates);
+
+        try (Connection connection = getConnection())
+        {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAMING_FETCH_SIZE);
+            setParameters(statement, parameters);
+
+            ResultSet row = statement.executeQuery();
+
+            while (row.next())
+            {
+                consumer.accept(mapRow(row));
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public ProductPage searchPage(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory,
+                                  ProductSort sort, ProductCursor after, int limit)
+    {
+        List<Product> products = new ArrayList<>();
+
+        List<Object> parameters = new ArrayList<>();
+        List<String> predicates = filterPredicates(parameters, categoryId, minPrice, maxPrice, subCategory);
+
+        // seek past the last row of the previous page, so every page costs the same as the first
+        if (after != null)
+        {
+            switch (sort)
+            {
+                case PRICE ->
+                {
+                    predicates.add("(price, product_id) > (?, ?)");
+                    parameters.add(after.getPrice());
+                }
+                case NAME ->
+                {
+                    predicates.add("(name, product_id) > (?, ?)");
+                    parameters.add(after.getValue());
+                }
+                case ID -> predicates.add("product_id > ?");
+            }
+            parameters.add(after.getProductId());
+        }
+
+        String orderBy = switch (sort)
+        {
+            case PRICE -> " ORDER BY price, product_id";
+            case NAME -> " ORDER BY name, product_id";
+            case ID -> " ORDER BY product_id";
+        };
+
+        // one extra row tells us whether there is a next page
+        String sql = "SELECT * FROM products" + where(predicates) + orderBy + " LIMIT ?";
+        parameters.add(limit + 1);
+
+        try (Connection connection = getConnection())
+        {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            setParameters(statement, parameters);
+
+            ResultSet row = statement.executeQuery();
+
+            while (row.next())
+            {
+                Product product = mapRow(row);
+                products.add(product);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        if (products.size() <= limit)
+        {
+            return new ProductPage(products, null);
+        }
+
+        products.remove(limit);
+        return new ProductPage(products, ProductCursor.after(products.get(limit - 1), sort));
+    }
+
     @Override
     public List<Product> listByCategoryId(int categoryId)
     {
@@ -156,6 +257,179 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         return null;
     }
 
+    @Override
+    public List<Product> createAll(List<Product> products)
+    {
+        String sql = "INSERT INTO products(name, price, category_id, description, subcategory, image_url, stock, featured) " +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?);";
+
+        try (Connection connection = getConnection())
+        {
+            // one transaction for the whole call, so a failure never leaves part of it imported,
+            // unless the caller already has a transaction open
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS))
+            {
+                for (int from = 0; from < products.size(); from += BATCH_SIZE)
+                {
+                    List<Product> chunk = products.subList(from, Math.min(from + BATCH_SIZE, products.size()));
+
+                    for (Product product : chunk)
+                    {
+                        statement.setString(1, product.getName());
+                        statement.setBigDecimal(2, product.getPrice());
+                        statement.setInt(3, product.getCategoryId());
+                        statement.setString(4, product.getDescription());
+                        statement.setString(5, product.getSubCategory());
+                        statement.setString(6, product.getImageUrl());
+                        statement.setInt(7, product.getStock());
+                        statement.setBoolean(8, product.isFeatured());
+                        statement.addBatch();
+                    }
+
+                    statement.executeBatch();
+
+                    // generated keys come back in insert order, so the rows never need to be re-read
+                    ResultSet generatedKeys = statement.getGeneratedKeys();
+                    for (Product product : chunk)
+                    {
+                        if (!generatedKeys.next())
+                            throw new SQLException("Missing generated key for a batched product insert.");
+
+                        product.setProductId(generatedKeys.getInt(1));
+                    }
+                }
+
+                if (autoCommit) connection.commit();
+            }
+            catch (SQLException e)
+            {
+                if (autoCommit) connection.rollback();
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return products;
+    }
+
+    @Override
+    public List<ProductAdjustmentResult> adjustAll(List<ProductAdjustment> adjustments)
+    {
+        List<ProductAdjustmentResult> results = new ArrayList<>();
+
+        try (Connection connection = getConnection())
+        {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try
+            {
+                // lock every affected row first, then work out the new values in memory
+                Map<Integer, ProductAdjustmentResult> current = lockStockAndPrice(connection, adjustments);
+                Map<Integer, ProductAdjustmentResult> changed = new HashMap<>();
+
+                for (ProductAdjustment adjustment : adjustments)
+                {
+                    ProductAdjustmentResult row = current.get(adjustment.getProductId());
+                    if (row == null)
+                    {
+                        results.add(new ProductAdjustmentResult(adjustment.getProductId(), ProductAdjustmentResult.Status.NOT_FOUND, null, null));
+                        continue;
+                    }
+
+                    int stock = row.getStock() + (adjustment.getStockDelta() == null ? 0 : adjustment.getStockDelta());
+                    BigDecimal price = adjustment.getPrice() == null ? row.getPrice() : adjustment.getPrice();
+
+                    if (stock < 0 || price.signum() < 0)
+                    {
+                        results.add(new ProductAdjustmentResult(row.getProductId(), ProductAdjustmentResult.Status.REJECTED, row.getStock(), row.getPrice()));
+                        continue;
+                    }
+
+                    // later lines for the same product build on earlier ones
+                    ProductAdjustmentResult updated = new ProductAdjustmentResult(row.getProductId(), ProductAdjustmentResult.Status.UPDATED, stock, price);
+                    current.put(row.getProductId(), updated);
+                    changed.put(row.getProductId(), updated);
+                    results.add(updated);
+                }
+
+                String sql = "UPDATE products SET stock = ?, price = ? WHERE product_id = ?;";
+                try (PreparedStatement statement = connection.prepareStatement(sql))
+                {
+                    int batched = 0;
+                    for (ProductAdjustmentResult row : changed.values())
+                    {
+                        statement.setInt(1, row.getStock());
+                        statement.setBigDecimal(2, row.getPrice());
+                        statement.setInt(3, row.getProductId());
+                        statement.addBatch();
+
+                        if (++batched % BATCH_SIZE == 0) statement.executeBatch();
+                    }
+                    statement.executeBatch();
+                }
+
+                if (autoCommit) connection.commit();
+            }
+            catch (SQLException e)
+            {
+                if (autoCommit) connection.rollback();
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+
+        return results;
+    }
+
+    private Map<Integer, ProductAdjustmentResult> lockStockAndPrice(Connection connection, List<ProductAdjustment> adjustments) throws SQLException
+    {
+        List<Integer> productIds = new ArrayList<>(new LinkedHashSet<>(adjustments.stream().map(ProductAdjustment::getProductId).toList()));
+        // a consistent lock order keeps two concurrent adjustments from deadlocking
+        Collections.sort(productIds);
+
+        Map<Integer, ProductAdjustmentResult> rows = new HashMap<>();
+        for (int from = 0; from < productIds.size(); from += BATCH_SIZE)
+        {
+            List<Integer> chunk = productIds.subList(from, Math.min(from + BATCH_SIZE, productIds.size()));
+            String sql = "SELECT product_id, stock, price FROM products WHERE product_id IN (" +
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY product_id FOR UPDATE;";
+
+            try (PreparedStatement statement = connection.prepareStatement(sql))
+            {
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    statement.setInt(i + 1, chunk.get(i));
+                }
+
+                ResultSet row = statement.executeQuery();
+                while (row.next())
+                {
+                    int productId = row.getInt("product_id");
+                    rows.put(productId, new ProductAdjustmentResult(productId, null, row.getInt("stock"), row.getBigDecimal("price")));
+                }
+            }
+        }
+        return rows;
+    }
+
     @Override
     public void update(int productId, Product product)
     {
@@ -211,6 +485,89 @@ public class MySqlProductDao extends MySqlDaoBase implements ProductDao
         }
     }
 
+    @Override
+    public List<Product> getByIds(Collection<Integer> productIds)
+    {
+        List<Product> products = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE)
+        {
+            List<Integer> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            String sql = "SELECT * FROM products WHERE product_id IN (" +
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY product_id;";
+
+            try (Connection connection = getConnection())
+            {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                for (int i = 0; i < chunk.size(); i++)
+                {
+                    statement.setInt(i + 1, chunk.get(i));
+                }
+
+                ResultSet row = statement.executeQuery();
+                while (row.next())
+                {
+                    products.add(mapRow(row));
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return products;
+    }
+
+    @Override
+    public void stockTaken(Collection<Integer> productIds)
+    {
+        // every read goes to the database
+    }
+
+    private static List<String> filterPredicates(List<Object> parameters,
+                                                 Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        List<String> predicates = new ArrayList<>();
+
+        if (categoryId != null)
+        {
+            predicates.add("category_id = ?");
+            parameters.add(categoryId);
+        }
+        if (subCategory != null && !subCategory.isEmpty())
+        {
+            predicates.add("subcategory = ?");
+            parameters.add(subCategory);
+        }
+        if (minPrice != null)
+        {
+            predicates.add("price >= ?");
+            parameters.add(minPrice);
+        }
+        if (maxPrice != null)
+        {
+            predicates.add("price <= ?");
+            parameters.add(maxPrice);
+        }
+
+        return predicates;
+    }
+
+    private static String where(List<String> predicates)
+    {
+        return predicates.isEmpty() ? "" : " WHERE " + String.join(" AND ", predicates);
+    }
+
+    private static void setParameters(PreparedStatement statement, List<Object> parameters) throws SQLException
+    {
+        for (int i = 0; i < parameters.size(); i++)
+        {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
     protected static Product mapRow(ResultSet row) throws SQLException
     {
         int productId = row.getInt("product_id");
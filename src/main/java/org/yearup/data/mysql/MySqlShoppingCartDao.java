@@ -2,6 +2,7 @@ package org.yearup.data.mysql;
 
 import org.springframework.stereotype.Component;
 import org.yearup.data.ShoppingCartDao;
+import org.yearup.models.CartOperation;
 import org.yearup.models.Product;
 import org.yearup.models.ShoppingCart;
 import org.yearup.models.ShoppingCartItem;
@@ -11,6 +12,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDao 
@@ -68,37 +72,34 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
     }
 
     @Override
-    public void addProduct(int userId, int productId) 
+    public ShoppingCartItem addProduct(int userId, int productId) 
     {
-        // Check if product already exists in cart
-        String checkSql = "SELECT quantity FROM shopping_cart WHERE user_id = ? AND product_id = ?";
+        // one statement both inserts a new line and increments an existing one,
+        // so concurrent adds of the same product can neither lose an increment nor collide on the key.
+        // LAST_INSERT_ID(expr) hands the new quantity back in the OK packet, so it is read without another query
+        String sql = "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, 1) " +
+                     "ON DUPLICATE KEY UPDATE quantity = LAST_INSERT_ID(quantity + 1)";
         
         try (Connection connection = getConnection()) 
         {
-            PreparedStatement checkStatement = connection.prepareStatement(checkSql);
-            checkStatement.setInt(1, userId);
-            checkStatement.setInt(2, productId);
-            
-            ResultSet row = checkStatement.executeQuery();
+            PreparedStatement statement = connection.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+            statement.setInt(1, userId);
+            statement.setInt(2, productId);
             
-            if (row.next()) 
-            {
-                // Product exists, increment quantity
-                String updateSql = "UPDATE shopping_cart SET quantity = quantity + 1 WHERE user_id = ? AND product_id = ?";
-                PreparedStatement updateStatement = connection.prepareStatement(updateSql);
-                updateStatement.setInt(1, userId);
-                updateStatement.setInt(2, productId);
-                updateStatement.executeUpdate();
-            } 
-            else 
+            // 1 row affected for a new line, 2 when an existing line was incremented
+            int rowsAffected = statement.executeUpdate();
+            int quantity = 1;
+
+            if (rowsAffected > 1)
             {
-                // Product doesn't exist, insert new row
-                String insertSql = "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, 1)";
-                PreparedStatement insertStatement = connection.prepareStatement(insertSql);
-                insertStatement.setInt(1, userId);
-                insertStatement.setInt(2, productId);
-                insertStatement.executeUpdate();
+                ResultSet generatedKeys = statement.getGeneratedKeys();
+                if (generatedKeys.next())
+                {
+                    quantity = generatedKeys.getInt(1);
+                }
             }
+
+            return item(productId, quantity);
         } 
         catch (SQLException e) 
         {
@@ -107,7 +108,7 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
     }
 
     @Override
-    public void updateQuantity(int userId, int productId, int quantity) 
+    public ShoppingCartItem updateQuantity(int userId, int productId, int quantity) 
     {
         String sql = "UPDATE shopping_cart SET quantity = ? WHERE user_id = ? AND product_id = ?";
         
@@ -118,7 +119,9 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
             statement.setInt(2, userId);
             statement.setInt(3, productId);
             
-            statement.executeUpdate();
+            int rowsAffected = statement.executeUpdate();
+
+            return rowsAffected > 0 ? item(productId, quantity) : null;
         } 
         catch (SQLException e) 
         {
@@ -126,6 +129,97 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
         }
     }
 
+    @Override
+    public void apply(int userId, List<CartOperation> operations)
+    {
+        applyAll(Map.of(userId, operations));
+    }
+
+    @Override
+    public void applyAll(Map<Integer, List<CartOperation>> operationsByUser)
+    {
+        String addSql = "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE quantity = quantity + ?";
+        String setSql = "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE quantity = ?";
+        String removeSql = "DELETE FROM shopping_cart WHERE user_id = ? AND product_id = ?";
+
+        try (Connection connection = getConnection())
+        {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            // every cart's lines go into the same three batches, so any number of carts costs three round trips
+            try (PreparedStatement add = connection.prepareStatement(addSql);
+                 PreparedStatement set = connection.prepareStatement(setSql);
+                 PreparedStatement remove = connection.prepareStatement(removeSql))
+            {
+                for (Map.Entry<Integer, List<CartOperation>> cart : operationsByUser.entrySet())
+                {
+                    int userId = cart.getKey();
+
+                    for (Map.Entry<Integer, LineChange> entry : fold(cart.getValue()).entrySet())
+                    {
+                        int productId = entry.getKey();
+                        LineChange change = entry.getValue();
+
+                        if (change.quantity == 0 && change.absolute)
+                        {
+                            remove.setInt(1, userId);
+                            remove.setInt(2, productId);
+                            remove.addBatch();
+                        }
+                        else if (change.quantity != 0)
+                        {
+                            PreparedStatement statement = change.absolute ? set : add;
+                            statement.setInt(1, userId);
+                            statement.setInt(2, productId);
+                            statement.setInt(3, change.quantity);
+                            statement.setInt(4, change.quantity);
+                            statement.addBatch();
+                        }
+                    }
+                }
+
+                remove.executeBatch();
+                set.executeBatch();
+                add.executeBatch();
+
+                if (autoCommit) connection.commit();
+            }
+            catch (SQLException e)
+            {
+                if (autoCommit) connection.rollback();
+                throw e;
+            }
+            finally
+            {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        catch (SQLException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // fold the operations per product first, so each product costs one batched statement
+    private static Map<Integer, LineChange> fold(List<CartOperation> operations)
+    {
+        Map<Integer, LineChange> changes = new LinkedHashMap<>();
+        for (CartOperation operation : operations)
+        {
+            LineChange change = changes.computeIfAbsent(operation.getProductId(), id -> new LineChange());
+            switch (operation.getOp())
+            {
+                case ADD -> change.add(operation.getQuantity() == null ? 1 : operation.getQuantity());
+                case SET -> change.set(operation.getQuantity());
+                case REMOVE -> change.set(0);
+            }
+        }
+        return changes;
+    }
+
     @Override
     public void clearCart(int userId) 
     {
@@ -162,4 +256,46 @@ public class MySqlShoppingCartDao extends MySqlDaoBase implements ShoppingCartDa
             throw new RuntimeException(e);
         }
     }
+
+    @Override
+    public void flush(int userId)
+    {
+        // every change is written immediately
+    }
+
+    @Override
+    public void evict(int userId)
+    {
+        // nothing is held in memory
+    }
+
+    private ShoppingCartItem item(int productId, int quantity)
+    {
+        Product product = new Product();
+        product.setProductId(productId);
+
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+
+        return item;
+    }
+
+    // net effect of a run of operations on one cart line: either a relative change or an absolute quantity
+    private static class LineChange
+    {
+        private boolean absolute;
+        private int quantity;
+
+        void add(int amount)
+        {
+            quantity += amount;
+        }
+
+        void set(int value)
+        {
+            absolute = true;
+            quantity = value;
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package org.yearup.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+import java.util.Locale;
+
+public class CartOperation
+{
+    public enum Type
+    {
+        // add quantity (default 1) to the line, creating it if needed
+        ADD,
+        // set the line to quantity, creating it if needed; 0 removes it
+        SET,
+        REMOVE;
+
+        @JsonCreator
+        public static Type parse(String value)
+        {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private Type op;
+    private int productId;
+    private Integer quantity;
+
+    public CartOperation()
+    {
+    }
+
+    public CartOperation(Type op, int productId, Integer quantity)
+    {
+        this.op = op;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Type getOp()
+    {
+        return op;
+    }
+
+    public void setOp(Type op)
+    {
+        this.op = op;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity()
+    {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity)
+    {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,52 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+
+public class PriceRangeCount
+{
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private int count;
+
+    public PriceRangeCount()
+    {
+    }
+
+    public PriceRangeCount(BigDecimal minPrice, BigDecimal maxPrice, int count)
+    {
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.count = count;
+    }
+
+    public BigDecimal getMinPrice()
+    {
+        return minPrice;
+    }
+
+    public void setMinPrice(BigDecimal minPrice)
+    {
+        this.minPrice = minPrice;
+    }
+
+    // exclusive, null for the open-ended top range
+    public BigDecimal getMaxPrice()
+    {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(BigDecimal maxPrice)
+    {
+        this.maxPrice = maxPrice;
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    public void setCount(int count)
+    {
+        this.count = count;
+    }
+}
@@ -0,0 +1,53 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+
+public class ProductAdjustment
+{
+    private int productId;
+    private Integer stockDelta;
+    private BigDecimal price;
+
+    public ProductAdjustment()
+    {
+    }
+
+    public ProductAdjustment(int productId, Integer stockDelta, BigDecimal price)
+    {
+        this.productId = productId;
+        this.stockDelta = stockDelta;
+        this.price = price;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    // added to the current stock; null leaves stock unchanged
+    public Integer getStockDelta()
+    {
+        return stockDelta;
+    }
+
+    public void setStockDelta(Integer stockDelta)
+    {
+        this.stockDelta = stockDelta;
+    }
+
+    // the new price; null leaves the price unchanged
+    public BigDecimal getPrice()
+    {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price)
+    {
+        this.price = price;
+    }
+}
@@ -0,0 +1,72 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+
+public class ProductAdjustmentResult
+{
+    public enum Status
+    {
+        UPDATED,
+        NOT_FOUND,
+        // the stock delta would take stock below zero, or the price is negative
+        REJECTED
+    }
+
+    private int productId;
+    private Status status;
+    private Integer stock;
+    private BigDecimal price;
+
+    public ProductAdjustmentResult()
+    {
+    }
+
+    public ProductAdjustmentResult(int productId, Status status, Integer stock, BigDecimal price)
+    {
+        this.productId = productId;
+        this.status = status;
+        this.stock = stock;
+        this.price = price;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public void setProductId(int productId)
+    {
+        this.productId = productId;
+    }
+
+    public Status getStatus()
+    {
+        return status;
+    }
+
+    public void setStatus(Status status)
+    {
+        this.status = status;
+    }
+
+    // stock and price after the adjustment, or as they stand when it was rejected
+    public Integer getStock()
+    {
+        return stock;
+    }
+
+    public void setStock(Integer stock)
+    {
+        this.stock = stock;
+    }
+
+    public BigDecimal getPrice()
+    {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price)
+    {
+        this.price = price;
+    }
+}
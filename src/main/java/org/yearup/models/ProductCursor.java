@@ -0,0 +1,80 @@
+package org.yearup.models;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last product on a page. Clients receive it as an opaque string and send it back
+ * to fetch the next page, which is read with a keyset (seek) query instead of an OFFSET.
+ */
+public class ProductCursor
+{
+    private final ProductSort sort;
+    private final int productId;
+    private final String value;
+    private final BigDecimal price;
+
+    public ProductCursor(ProductSort sort, int productId, String value)
+    {
+        this.sort = sort;
+        this.productId = productId;
+        this.value = value;
+        // parsed up front so a cursor with a bad price is rejected when decoded, not when the page is read
+        this.price = sort == ProductSort.PRICE ? new BigDecimal(value) : null;
+    }
+
+    public static ProductCursor after(Product product, ProductSort sort)
+    {
+        String value = switch (sort)
+        {
+            case PRICE -> product.getPrice().toPlainString();
+            case NAME -> product.getName();
+            case ID -> "";
+        };
+
+        return new ProductCursor(sort, product.getProductId(), value);
+    }
+
+    public static ProductCursor decode(String cursor)
+    {
+        try
+        {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            // the value goes last because product names may contain the separator
+            String[] parts = decoded.split("\\|", 3);
+
+            return new ProductCursor(ProductSort.valueOf(parts[0]), Integer.parseInt(parts[1]), parts[2]);
+        }
+        catch (RuntimeException e)
+        {
+            throw new IllegalArgumentException("Invalid cursor.", e);
+        }
+    }
+
+    public String encode()
+    {
+        String raw = sort.name() + "|" + productId + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public ProductSort getSort()
+    {
+        return sort;
+    }
+
+    public int getProductId()
+    {
+        return productId;
+    }
+
+    public String getValue()
+    {
+        return value;
+    }
+
+    public BigDecimal getPrice()
+    {
+        return price;
+    }
+}
@@ -0,0 +1,43 @@
+package org.yearup.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProductFacets
+{
+    private Map<Integer, Integer> categories = new TreeMap<>();
+    private Map<String, Integer> subCategories = new TreeMap<>();
+    private List<PriceRangeCount> priceRanges = new ArrayList<>();
+
+    public Map<Integer, Integer> getCategories()
+    {
+        return categories;
+    }
+
+    public void setCategories(Map<Integer, Integer> categories)
+    {
+        this.categories = categories;
+    }
+
+    public Map<String, Integer> getSubCategories()
+    {
+        return subCategories;
+    }
+
+    public void setSubCategories(Map<String, Integer> subCategories)
+    {
+        this.subCategories = subCategories;
+    }
+
+    public List<PriceRangeCount> getPriceRanges()
+    {
+        return priceRanges;
+    }
+
+    public void setPriceRanges(List<PriceRangeCount> priceRanges)
+    {
+        this.priceRanges = priceRanges;
+    }
+}
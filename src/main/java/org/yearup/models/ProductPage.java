@@ -0,0 +1,30 @@
+package org.yearup.models;
+
+import java.util.List;
+
+public class ProductPage
+{
+    private final List<Product> products;
+    private final ProductCursor next;
+
+    public ProductPage(List<Product> products, ProductCursor next)
+    {
+        this.products = products;
+        this.next = next;
+    }
+
+    public List<Product> getProducts()
+    {
+        return products;
+    }
+
+    public ProductCursor getNext()
+    {
+        return next;
+    }
+
+    public boolean hasNext()
+    {
+        return next != null;
+    }
+}
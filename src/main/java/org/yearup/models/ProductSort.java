@@ -0,0 +1,20 @@
+package org.yearup.models;
+
+import java.util.Locale;
+
+public enum ProductSort
+{
+    ID,
+    PRICE,
+    NAME;
+
+    public static ProductSort parse(String value)
+    {
+        if (value == null || value.isEmpty())
+        {
+            return ID;
+        }
+
+        return ProductSort.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,143 @@
+package org.yearup.search;
+
+/**
+ * Steps 1a to 1c of the Porter stemmer: folds plurals, -ed and -ing forms and a trailing y, so that
+ * "jeans" matches "jean" and "cooking" matches "cook". The later Porter steps (derivational suffixes)
+ * are left out; they rarely matter for short product names and descriptions.
+ */
+final class EnglishStemmer
+{
+    private EnglishStemmer()
+    {
+    }
+
+    static String stem(String word)
+    {
+        if (word.length() <= 2)
+        {
+            return word;
+        }
+
+        StringBuilder b = new StringBuilder(word);
+        step1a(b);
+        step1b(b);
+        step1c(b);
+        return b.toString();
+    }
+
+    private static void step1a(StringBuilder b)
+    {
+        if (endsWith(b, "sses") || endsWith(b, "ies"))
+        {
+            b.setLength(b.length() - 2);
+        }
+        else if (!endsWith(b, "ss") && endsWith(b, "s"))
+        {
+            b.setLength(b.length() - 1);
+        }
+    }
+
+    private static void step1b(StringBuilder b)
+    {
+        if (endsWith(b, "eed"))
+        {
+            if (measure(b, b.length() - 3) > 0)
+            {
+                b.setLength(b.length() - 1);
+            }
+            return;
+        }
+
+        int suffix = endsWith(b, "ed") ? 2 : endsWith(b, "ing") ? 3 : 0;
+        if (suffix == 0 || !hasVowel(b, b.length() - suffix))
+        {
+            return;
+        }
+
+        b.setLength(b.length() - suffix);
+
+        if (endsWith(b, "at") || endsWith(b, "bl") || endsWith(b, "iz"))
+        {
+            b.append('e');
+        }
+        else if (endsWithDoubleConsonant(b))
+        {
+            char last = b.charAt(b.length() - 1);
+            if (last != 'l' && last != 's' && last != 'z')
+            {
+                b.setLength(b.length() - 1);
+            }
+        }
+        else if (measure(b, b.length()) == 1 && endsWithCvc(b))
+        {
+            b.append('e');
+        }
+    }
+
+    private static void step1c(StringBuilder b)
+    {
+        int last = b.length() - 1;
+        if (b.charAt(last) == 'y' && hasVowel(b, last))
+        {
+            b.setCharAt(last, 'i');
+        }
+    }
+
+    private static boolean endsWith(StringBuilder b, String suffix)
+    {
+        int offset = b.length() - suffix.length();
+        return offset >= 0 && b.indexOf(suffix, offset) == offset;
+    }
+
+    private static boolean isConsonant(StringBuilder b, int i)
+    {
+        return switch (b.charAt(i))
+        {
+            case 'a', 'e', 'i', 'o', 'u' -> false;
+            case 'y' -> i == 0 || !isConsonant(b, i - 1);
+            default -> true;
+        };
+    }
+
+    // the number of vowel-consonant sequences in the first length characters
+    private static int measure(StringBuilder b, int length)
+    {
+        int count = 0;
+        int i = 0;
+        while (i < length && isConsonant(b, i)) i++;
+        while (i < length)
+        {
+            while (i < length && !isConsonant(b, i)) i++;
+            if (i >= length) break;
+            while (i < length && isConsonant(b, i)) i++;
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean hasVowel(StringBuilder b, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            if (!isConsonant(b, i)) return true;
+        }
+        return false;
+    }
+
+    private static boolean endsWithDoubleConsonant(StringBuilder b)
+    {
+        int last = b.length() - 1;
+        return last >= 1 && b.charAt(last) == b.charAt(last - 1) && isConsonant(b, last);
+    }
+
+    private static boolean endsWithCvc(StringBuilder b)
+    {
+        int last = b.length() - 1;
+        if (last < 2 || !isConsonant(b, last - 2) || isConsonant(b, last - 1) || !isConsonant(b, last))
+        {
+            return false;
+        }
+        char c = b.charAt(last);
+        return c != 'w' && c != 'x' && c != 'y';
+    }
+}
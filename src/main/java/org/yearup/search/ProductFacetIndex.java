@@ -0,0 +1,275 @@
+package org.yearup.search;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProductChangeListener;
+import org.yearup.models.PriceRangeCount;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts for catalog navigation, kept as bitsets over product slots.
+ *
+ * Every product occupies a slot and every category, subcategory and price range is a bitset of
+ * the slots it contains. The catalog pushes each change, so a save or delete only flips the
+ * bits of one slot. Counting is intersecting bitsets: each facet is counted with every filter
+ * applied except its own, so the counts show what selecting another value would return.
+ */
+@Component
+public class ProductFacetIndex implements ProductChangeListener
+{
+    private static final BigDecimal[] PRICE_BOUNDS = {
+            new BigDecimal("0"), new BigDecimal("25"), new BigDecimal("50"),
+            new BigDecimal("100"), new BigDecimal("250"), new BigDecimal("500")
+    };
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Integer> slots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private Product[] products = new Product[16];
+    private final BitSet live = new BitSet();
+
+    private final Map<Integer, BitSet> byCategory = new HashMap<>();
+    // lower-cased subcategory -> slots, and the spelling to report it with
+    private final Map<String, BitSet> bySubCategory = new HashMap<>();
+    private final Map<String, String> subCategoryNames = new HashMap<>();
+    private final BitSet[] byPriceRange = new BitSet[PRICE_BOUNDS.length];
+
+    public ProductFacetIndex()
+    {
+        Arrays.setAll(byPriceRange, i -> new BitSet());
+    }
+
+    public ProductFacets facets(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory)
+    {
+        ProductFacets facets = new ProductFacets();
+
+        lock.readLock().lock();
+        try
+        {
+            BitSet categoryFilter = categoryId == null ? null : byCategory.getOrDefault(categoryId, new BitSet());
+            BitSet subCategoryFilter = subCategory == null || subCategory.isEmpty()
+                    ? null
+                    : bySubCategory.getOrDefault(key(subCategory), new BitSet());
+            BitSet priceFilter = minPrice == null && maxPrice == null ? null : inPriceRange(minPrice, maxPrice);
+
+            BitSet base = matching(subCategoryFilter, priceFilter);
+            byCategory.forEach((id, members) -> {
+                int count = intersectionCount(base, members);
+                if (count > 0) facets.getCategories().put(id, count);
+            });
+
+            BitSet subCategoryBase = matching(categoryFilter, priceFilter);
+            bySubCategory.forEach((key, members) -> {
+                int count = intersectionCount(subCategoryBase, members);
+                if (count > 0) facets.getSubCategories().put(subCategoryNames.get(key), count);
+            });
+
+            BitSet priceBase = matching(categoryFilter, subCategoryFilter);
+            for (int i = 0; i < PRICE_BOUNDS.length; i++)
+            {
+                BigDecimal upper = i + 1 < PRICE_BOUNDS.length ? PRICE_BOUNDS[i + 1] : null;
+                facets.getPriceRanges().add(new PriceRangeCount(PRICE_BOUNDS[i], upper, intersectionCount(priceBase, byPriceRange[i])));
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        return facets;
+    }
+
+    @Override
+    public void productsLoaded(List<Product> loaded)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            slots.clear();
+            freeSlots.clear();
+            products = new Product[Math.max(16, loaded.size())];
+            live.clear();
+            byCategory.clear();
+            bySubCategory.clear();
+            subCategoryNames.clear();
+            for (BitSet range : byPriceRange)
+            {
+                range.clear();
+            }
+
+            for (Product product : loaded)
+            {
+                add(product);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            remove(product.getProductId());
+            add(product);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stockChanged(List<Product> products)
+    {
+        // no facet counts stock
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            remove(productId);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Product product)
+    {
+        int slot = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+        if (slot >= products.length)
+        {
+            products = Arrays.copyOf(products, products.length * 2);
+        }
+
+        slots.put(product.getProductId(), slot);
+        products[slot] = product;
+        live.set(slot);
+
+        byCategory.computeIfAbsent(product.getCategoryId(), k -> new BitSet()).set(slot);
+
+        if (product.getSubCategory() != null && !product.getSubCategory().isEmpty())
+        {
+            String key = key(product.getSubCategory());
+            bySubCategory.computeIfAbsent(key, k -> new BitSet()).set(slot);
+            subCategoryNames.putIfAbsent(key, product.getSubCategory());
+        }
+
+        int range = priceRange(product.getPrice());
+        if (range >= 0)
+        {
+            byPriceRange[range].set(slot);
+        }
+    }
+
+    private void remove(int productId)
+    {
+        Integer slot = slots.remove(productId);
+        if (slot == null) return;
+
+        Product product = products[slot];
+        products[slot] = null;
+        live.clear(slot);
+        freeSlots.push(slot);
+
+        clear(byCategory, product.getCategoryId(), slot);
+
+        if (product.getSubCategory() != null && !product.getSubCategory().isEmpty())
+        {
+            String key = key(product.getSubCategory());
+            if (clear(bySubCategory, key, slot))
+            {
+                subCategoryNames.remove(key);
+            }
+        }
+
+        int range = priceRange(product.getPrice());
+        if (range >= 0)
+        {
+            byPriceRange[range].clear(slot);
+        }
+    }
+
+    // clears the slot and drops the bitset once it is empty; returns true when it was dropped
+    private static <K> boolean clear(Map<K, BitSet> index, K key, int slot)
+    {
+        BitSet members = index.get(key);
+        if (members == null) return false;
+
+        members.clear(slot);
+        if (members.isEmpty())
+        {
+            index.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    private BitSet inPriceRange(BigDecimal minPrice, BigDecimal maxPrice)
+    {
+        BitSet matches = new BitSet(products.length);
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1))
+        {
+            BigDecimal price = products[slot].getPrice();
+            if ((minPrice == null || price.compareTo(minPrice) >= 0) && (maxPrice == null || price.compareTo(maxPrice) <= 0))
+            {
+                matches.set(slot);
+            }
+        }
+        return matches;
+    }
+
+    private BitSet matching(BitSet first, BitSet second)
+    {
+        BitSet result = (BitSet) live.clone();
+        if (first != null) result.and(first);
+        if (second != null) result.and(second);
+        return result;
+    }
+
+    private static int intersectionCount(BitSet left, BitSet right)
+    {
+        BitSet result = (BitSet) left.clone();
+        result.and(right);
+        return result.cardinality();
+    }
+
+    private static int priceRange(BigDecimal price)
+    {
+        if (price == null) return -1;
+
+        for (int i = PRICE_BOUNDS.length - 1; i >= 0; i--)
+        {
+            if (price.compareTo(PRICE_BOUNDS[i]) >= 0) return i;
+        }
+        return -1;
+    }
+
+    // MySQL compares subcategory with a case-insensitive collation, so the facets do too
+    private static String key(String subCategory)
+    {
+        return subCategory.toLowerCase(Locale.ROOT);
+    }
+}
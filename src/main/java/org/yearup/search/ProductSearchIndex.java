@@ -0,0 +1,180 @@
+package org.yearup.search;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProductChangeListener;
+import org.yearup.models.Product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over product names and descriptions, ranked with BM25.
+ *
+ * The catalog pushes every load, save and delete, so the index is updated one product at a time
+ * and queries are answered without a database round trip. Name terms are counted twice so a match
+ * in the name outranks the same word buried in a description.
+ */
+@Component
+public class ProductSearchIndex implements ProductChangeListener
+{
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_BOOST = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (product id -> term frequency)
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    // product id -> its term frequencies, needed to unindex a product that changed
+    private final Map<Integer, Map<String, Integer>> documents = new HashMap<>();
+    private final Map<Integer, Integer> lengths = new HashMap<>();
+    private long totalLength;
+
+    /**
+     * Ids of the products that best match the query, best first.
+     */
+    public List<Integer> search(String query, int limit)
+    {
+        List<String> terms = TextAnalyzer.terms(query);
+        Map<Integer, Double> scores = new HashMap<>();
+
+        lock.readLock().lock();
+        try
+        {
+            int documentCount = documents.size();
+            if (documentCount == 0 || terms.isEmpty())
+            {
+                return new ArrayList<>();
+            }
+
+            double averageLength = (double) totalLength / documentCount;
+
+            for (String term : terms.stream().distinct().toList())
+            {
+                Map<Integer, Integer> matches = postings.get(term);
+                if (matches == null) continue;
+
+                double idf = Math.log(1 + (documentCount - matches.size() + 0.5) / (matches.size() + 0.5));
+
+                matches.forEach((productId, frequency) -> {
+                    double norm = K1 * (1 - B + B * lengths.get(productId) / averageLength);
+                    double score = idf * frequency * (K1 + 1) / (frequency + norm);
+                    scores.merge(productId, score, Double::sum);
+                });
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        return scores.entrySet()
+                     .stream()
+                     .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                     .limit(limit)
+                     .map(Map.Entry::getKey)
+                     .toList();
+    }
+
+    @Override
+    public void productsLoaded(List<Product> products)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            postings.clear();
+            documents.clear();
+            lengths.clear();
+            totalLength = 0;
+
+            for (Product product : products)
+            {
+                add(product);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            remove(product.getProductId());
+            add(product);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stockChanged(List<Product> products)
+    {
+        // stock is not part of the text that is indexed
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        lock.writeLock().lock();
+        try
+        {
+            remove(productId);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Product product)
+    {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : TextAnalyzer.terms(product.getName()))
+        {
+            frequencies.merge(term, NAME_BOOST, Integer::sum);
+        }
+        for (String term : TextAnalyzer.terms(product.getDescription()))
+        {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        int productId = product.getProductId();
+
+        documents.put(productId, frequencies);
+        lengths.put(productId, length);
+        totalLength += length;
+        frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(productId, frequency));
+    }
+
+    private void remove(int productId)
+    {
+        Map<String, Integer> frequencies = documents.remove(productId);
+        if (frequencies == null)
+        {
+            return;
+        }
+
+        totalLength -= lengths.remove(productId);
+        for (String term : frequencies.keySet())
+        {
+            Map<Integer, Integer> matches = postings.get(term);
+            matches.remove(productId);
+            if (matches.isEmpty())
+            {
+                postings.remove(term);
+            }
+        }
+    }
+}
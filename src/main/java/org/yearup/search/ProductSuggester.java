@@ -0,0 +1,211 @@
+package org.yearup.search;
+
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProductChangeListener;
+import org.yearup.models.Product;
+import org.yearup.models.ProductSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Prefix autocomplete over product names.
+ *
+ * Every product name is inserted into a trie once for each word it contains, so "jea" finds
+ * "Men's Jeans". Each trie node stores the best {@link #MAX_SUGGESTIONS} products below it, ranked
+ * featured first and then by stock, so a lookup is a walk down the prefix and never scans matches.
+ * The trie is immutable and reads never lock. It is rebuilt when a product is added or deleted or
+ * a name or featured flag changes. Price and stock changes, from admin writes, bulk adjustments and
+ * checkouts alike, are frequent and at most nudge the ranking, so they are recorded and picked up by
+ * the next rebuild instead of triggering one.
+ */
+@Component
+public class ProductSuggester implements ProductChangeListener
+{
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Product> RANK = Comparator.comparing(Product::isFeatured).reversed()
+            .thenComparing(Comparator.comparingInt(Product::getStock).reversed())
+            .thenComparing(Product::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparingInt(Product::getProductId);
+
+    private Map<Integer, Product> products = new HashMap<>();
+    private volatile Node root = new Node(new char[0], new Node[0], new ProductSuggestion[0]);
+
+    public List<ProductSuggestion> suggest(String prefix, int limit)
+    {
+        String key = normalize(prefix);
+        if (key.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++)
+        {
+            node = node.child(key.charAt(i));
+        }
+
+        if (node == null)
+        {
+            return new ArrayList<>();
+        }
+
+        return Arrays.asList(node.top).subList(0, Math.min(limit, node.top.length));
+    }
+
+    @Override
+    public synchronized void productsLoaded(List<Product> loaded)
+    {
+        products = new HashMap<>();
+        loaded.forEach(product -> products.put(product.getProductId(), product));
+        rebuild();
+    }
+
+    @Override
+    public synchronized void productSaved(Product product)
+    {
+        if (record(product))
+        {
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void productsSaved(List<Product> saved)
+    {
+        boolean changed = false;
+        for (Product product : saved)
+        {
+            changed |= record(product);
+        }
+
+        if (changed)
+        {
+            rebuild();
+        }
+    }
+
+    @Override
+    public synchronized void stockChanged(List<Product> changed)
+    {
+        changed.forEach(product -> products.put(product.getProductId(), product));
+    }
+
+    @Override
+    public synchronized void productDeleted(int productId)
+    {
+        if (products.remove(productId) != null)
+        {
+            rebuild();
+        }
+    }
+
+    // stores the product and tells whether the trie has to be rebuilt for it
+    private boolean record(Product product)
+    {
+        Product previous = products.put(product.getProductId(), product);
+        return previous == null
+                || !Objects.equals(previous.getName(), product.getName())
+                || previous.isFeatured() != product.isFeatured();
+    }
+
+    private void rebuild()
+    {
+        List<Product> ranked = new ArrayList<>(products.values());
+        ranked.sort(RANK);
+
+        // inserting in rank order means each node's candidate list is already sorted
+        Builder builder = new Builder();
+        for (Product product : ranked)
+        {
+            String name = normalize(product.getName());
+            for (int start = 0; start < name.length(); start++)
+            {
+                if (start == 0 || name.charAt(start - 1) == ' ')
+                {
+                    builder.insert(name, start, product);
+                }
+            }
+        }
+
+        root = builder.freeze();
+    }
+
+    private static String normalize(String text)
+    {
+        if (text == null)
+        {
+            return "";
+        }
+        return text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static class Node
+    {
+        private final char[] keys;
+        private final Node[] children;
+        private final ProductSuggestion[] top;
+
+        Node(char[] keys, Node[] children, ProductSuggestion[] top)
+        {
+            this.keys = keys;
+            this.children = children;
+            this.top = top;
+        }
+
+        Node child(char key)
+        {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static class Builder
+    {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private final Set<Product> candidates = new LinkedHashSet<>();
+
+        void insert(String name, int start, Product product)
+        {
+            Builder node = this;
+            for (int i = start; i < name.length(); i++)
+            {
+                node = node.children.computeIfAbsent(name.charAt(i), k -> new Builder());
+                if (node.candidates.size() < MAX_SUGGESTIONS)
+                {
+                    node.candidates.add(product);
+                }
+            }
+        }
+
+        Node freeze()
+        {
+            char[] keys = new char[children.size()];
+            Node[] nodes = new Node[children.size()];
+
+            int i = 0;
+            for (Map.Entry<Character, Builder> child : children.entrySet())
+            {
+                keys[i] = child.getKey();
+                nodes[i] = child.getValue().freeze();
+                i++;
+            }
+
+            ProductSuggestion[] top = candidates.stream()
+                                                .map(product -> new ProductSuggestion(product.getProductId(), product.getName()))
+                                                .toArray(ProductSuggestion[]::new);
+
+            return new Node(keys, nodes, top);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.yearup.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns product text and search queries into index terms: lower-cases, splits on anything that is not a
+ * letter or digit, drops possessive 's and common stop words, and stems what is left.
+ */
+final class TextAnalyzer
+{
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is", "it",
+            "of", "on", "or", "that", "the", "this", "to", "with", "your", "you", "all");
+
+    private TextAnalyzer()
+    {
+    }
+
+    static List<String> terms(String text)
+    {
+        List<String> terms = new ArrayList<>();
+        if (text == null)
+        {
+            return terms;
+        }
+
+        String normalized = text.toLowerCase(Locale.ROOT).replace("'s", "").replace("'", "");
+        for (String token : normalized.split("[^\\p{L}\\p{N}]+"))
+        {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token))
+            {
+                terms.add(EnglishStemmer.stem(token));
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,26 @@
+package org.yearup.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security user that also carries the database id of the user, so request handlers
+ * can find the current user's rows without looking the user up by name.
+ */
+public class AuthenticatedUser extends User
+{
+    private final int id;
+
+    public AuthenticatedUser(int id, String username, String password, Collection<? extends GrantedAuthority> authorities)
+    {
+        super(username, password, authorities);
+        this.id = id;
+    }
+
+    public int getId()
+    {
+        return id;
+    }
+}
@@ -0,0 +1,31 @@
+package org.yearup.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the password hashing queue is full. Answers 503 and tells the client when to retry.
+ */
+public class PasswordHashingBusyException extends ResponseStatusException
+{
+    private static final long serialVersionUID = 3861495622113620738L;
+
+    private final Duration retryAfter;
+
+    public PasswordHashingBusyException(Duration retryAfter)
+    {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Too many sign-ins right now, please try again shortly.");
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders()
+    {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
@@ -6,7 +6,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.yearup.data.UserDao;
 
+import java.security.Principal;
 import java.util.Optional;
 
 public class SecurityUtils {
@@ -40,4 +42,18 @@ public class SecurityUtils {
 
         return Optional.ofNullable(username);
     }
+
+    /**
+     * Get the database id of the given user, from the token when it carries one.
+     *
+     * @return the user id, or -1 when the user does not exist.
+     */
+    public static int getUserId(Principal principal, UserDao userDao) {
+        if (principal instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.getId();
+        }
+
+        return userDao.getIdByUsername(principal.getName());
+    }
 }
@@ -1,7 +1,9 @@
 package org.yearup.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.yearup.security.jwt.JWTConfigurer;
 import org.yearup.security.jwt.TokenProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -13,6 +15,8 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true)
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
@@ -34,9 +38,18 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
         this.userModelDetailsService = userModelDetailsService;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    /**
+     * Hashing runs on its own pool, one thread per core. Static so the user dao can share the
+     * encoder without depending on this configuration, which itself depends on the user dao.
+     */
+    @Bean(destroyMethod = "close")
+    public static PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${passwords.queue-capacity:64}") int queueCapacity,
+            @Value("${passwords.retry-after-seconds:2}") long retryAfterSeconds
+    ) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), Runtime.getRuntime().availableProcessors(),
+                queueCapacity, Duration.ofSeconds(retryAfterSeconds), meterRegistry);
     }
 
     /**
@@ -67,6 +80,11 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
 
+                // cache and runtime metrics are for admins only
+                .and()
+                .authorizeRequests()
+                .antMatchers("/actuator/**").hasRole("ADMIN")
+
                 .and()
                 .apply(securityConfigurerAdapter());
     }
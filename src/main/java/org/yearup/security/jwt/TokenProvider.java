@@ -1,6 +1,8 @@
 package org.yearup.security.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -15,9 +17,16 @@ import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
+import org.yearup.cache.BoundedCache;
+import org.yearup.security.AuthenticatedUser;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Date;
 import java.util.stream.Collectors;
@@ -29,19 +38,26 @@ public class TokenProvider implements InitializingBean
     private final Logger logger = LoggerFactory.getLogger(TokenProvider.class);
 
     private static final String AUTHORITIES_KEY = "auth";
+    private static final String USER_ID_KEY = "uid";
 
     private final String secret;
     private final long tokenTimeout;
 
+    // tokens that already passed signature verification, keyed by a hash of the token
+    private final BoundedCache<String, Authentication> verified;
+
     private Key key;
+    private JwtParser parser;
 
 
     public TokenProvider(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.token-timeout-seconds}") long tokenTimeoutSeconds)
+            @Value("${jwt.token-timeout-seconds}") long tokenTimeoutSeconds,
+            @Value("${jwt.verified-cache-size:10000}") int verifiedCacheSize)
     {
         this.secret = secret;
         this.tokenTimeout = tokenTimeoutSeconds * 1000;
+        this.verified = new BoundedCache<>(verifiedCacheSize, Duration.ofSeconds(tokenTimeoutSeconds));
     }
 
     @Override
@@ -49,6 +65,7 @@ public class TokenProvider implements InitializingBean
     {
         byte[] keyBytes = Decoders.BASE64.decode(secret);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     public String createToken(Authentication authentication, boolean rememberMe)
@@ -60,44 +77,87 @@ public class TokenProvider implements InitializingBean
         long now = (new Date()).getTime();
         Date expirationDate = new Date(now + this.tokenTimeout);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(authentication.getName())
-                .claim(AUTHORITIES_KEY, authorities)
+                .claim(AUTHORITIES_KEY, authorities);
+
+        // with the user id in the token, requests never have to look the user up by name
+        if (authentication.getPrincipal() instanceof AuthenticatedUser user)
+        {
+            builder.claim(USER_ID_KEY, user.getId());
+        }
+
+        return builder
                 .signWith(key, SignatureAlgorithm.HS512)
                 .setExpiration(expirationDate)
                 .compact();
     }
 
-    public Authentication getAuthentication(String token)
+    /**
+     * Verify the token and return its authentication, or null when the token is invalid or expired.
+     * A token is parsed and its signature checked once; repeat requests with the same token are
+     * served from the verified cache until the token expires.
+     */
+    public Authentication authenticate(String token)
     {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        String hash = hash(token);
+        Authentication authentication = verified.getIfPresent(hash);
+        if (authentication != null)
+        {
+            return authentication;
+        }
+
+        Claims claims;
+        try
+        {
+            claims = parser.parseClaimsJws(token).getBody();
+        }
+        catch (Exception e)
+        {
+            logger.info("Token Invalid.");
+            logger.trace("Token Invalid trace: {}.", e.toString());
+            return null;
+        }
+
+        authentication = toAuthentication(claims, token);
+
+        // never cache a token past its own expiry
+        Date expiration = claims.getExpiration();
+        if (expiration != null)
+        {
+            long remaining = expiration.getTime() - System.currentTimeMillis();
+            if (remaining > 0) verified.put(hash, authentication, Duration.ofMillis(remaining));
+        }
 
+        return authentication;
+    }
+
+    private Authentication toAuthentication(Claims claims, String token)
+    {
         Collection<? extends GrantedAuthority> authorities =
                 Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
 
-        User principal = new User(claims.getSubject(), "", authorities);
+        // tokens issued before the id claim existed still authenticate, by name only
+        Integer userId = claims.get(USER_ID_KEY, Integer.class);
+        User principal = userId == null
+                ? new User(claims.getSubject(), "", authorities)
+                : new AuthenticatedUser(userId, claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
-    public boolean validateToken(String authToken)
+    private static String hash(String token)
     {
         try
         {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            return true;
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
         }
-        catch (Exception e)
+        catch (NoSuchAlgorithmException e)
         {
-            logger.info("Token Invalid.");
-            logger.trace("Token Invalid trace: {}.", e.toString());
+            throw new IllegalStateException(e);
         }
-        return false;
     }
 }
@@ -0,0 +1,87 @@
+package org.yearup.services;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.yearup.data.CheckoutDao;
+import org.yearup.data.CheckoutResult;
+import org.yearup.data.ProductDao;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.data.memory.FlashSaleStock;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns a user's cart into an order.
+ *
+ * The cart may be held in memory in front of the database, so pending changes are flushed before
+ * the checkout transaction reads it, and the in-memory copy is dropped once the transaction has
+ * emptied the stored cart. The catalog then re-reads the stock of the products sold, so it shows the
+ * stock that is left; flash-sale products are left to their reconciler, which writes and
+ * refreshes them in batches.
+ */
+@Service
+public class CheckoutService
+{
+    // shipping can be calculated here once there are business rules for it
+    private static final BigDecimal SHIPPING_AMOUNT = BigDecimal.ZERO;
+
+    private final CheckoutDao checkoutDao;
+    private final ShoppingCartDao shoppingCartDao;
+    private final ProductDao productDao;
+    private final FlashSaleStock flashSaleStock;
+
+    public CheckoutService(CheckoutDao checkoutDao, ShoppingCartDao shoppingCartDao, ProductDao productDao,
+                           @Nullable FlashSaleStock flashSaleStock)
+    {
+        this.checkoutDao = checkoutDao;
+        this.shoppingCartDao = shoppingCartDao;
+        this.productDao = productDao;
+        this.flashSaleStock = flashSaleStock;
+    }
+
+    public Order checkout(int userId)
+    {
+        prepare(userId);
+        Order order = place(userId);
+        placed(order);
+        return order;
+    }
+
+    // makes sure the stored cart is the one the user sees
+    void prepare(int userId)
+    {
+        shoppingCartDao.flush(userId);
+    }
+
+    // commits the order; the caller runs placed() once it has its answer
+    Order place(int userId)
+    {
+        return checkoutDao.checkout(userId, SHIPPING_AMOUNT);
+    }
+
+    List<CheckoutResult> placeAll(List<Integer> userIds)
+    {
+        return checkoutDao.checkoutAll(userIds, SHIPPING_AMOUNT);
+    }
+
+    // brings the in-memory copies in line with a committed order
+    void placed(Order order)
+    {
+        shoppingCartDao.evict(order.getUserId());
+
+        Set<Integer> sold = new HashSet<>();
+        for (OrderLineItem lineItem : order.getLineItems())
+        {
+            if (flashSaleStock == null || !flashSaleStock.covers(lineItem.getProductId()))
+            {
+                sold.add(lineItem.getProductId());
+            }
+        }
+        if (!sold.isEmpty()) productDao.stockTaken(sold);
+    }
+}
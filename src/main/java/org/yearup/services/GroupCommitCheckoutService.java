@@ -0,0 +1,196 @@
+package org.yearup.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.yearup.data.CheckoutResult;
+import org.yearup.models.Order;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places orders in batches that share one transaction, so a burst of checkouts pays for one commit
+ * per batch instead of one per order.
+ *
+ * Checkouts are queued and a single writer thread takes everything that queued up while the previous
+ * batch was committing, up to the batch size, so batches only grow when there is load to share them.
+ * Each caller still gets its own order or its own error, as soon as the batch commits; the cached carts
+ * and stock are updated afterwards. When the queue is full a checkout is refused straight away rather
+ * than waiting.
+ */
+@Service
+@ConditionalOnProperty(name = "checkout.group-commit.enabled", havingValue = "true")
+public class GroupCommitCheckoutService implements AutoCloseable
+{
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitCheckoutService.class);
+
+    private final CheckoutService checkoutService;
+    private final BlockingQueue<PendingCheckout> queue;
+    private final int maxBatchSize;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public GroupCommitCheckoutService(CheckoutService checkoutService,
+                                      @Value("${checkout.group-commit.queue-capacity:1000}") int queueCapacity,
+                                      @Value("${checkout.group-commit.max-batch-size:100}") int maxBatchSize)
+    {
+        this.checkoutService = checkoutService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+
+        writer = new Thread(this::write, "checkout-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue the user's checkout. The future completes with the placed order, or with the
+     * CheckoutException or other failure that stopped it.
+     *
+     * @throws RejectedExecutionException when the queue is full or the service is closing
+     */
+    public CompletableFuture<Order> submit(int userId)
+    {
+        checkoutService.prepare(userId);
+
+        PendingCheckout pending = new PendingCheckout(userId);
+        if (!running || !queue.offer(pending))
+        {
+            throw new RejectedExecutionException("The checkout queue is full.");
+        }
+        return pending.result;
+    }
+
+    /**
+     * Stop taking checkouts and place everything already queued.
+     */
+    @Override
+    public void close()
+    {
+        running = false;
+        try
+        {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        // a checkout that was queued just as the writer stopped
+        rejectQueued();
+    }
+
+    private void write()
+    {
+        List<PendingCheckout> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty())
+        {
+            try
+            {
+                PendingCheckout first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                place(batch);
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (RuntimeException ex)
+            {
+                // never let one bad batch stop the writer
+                batch.forEach(pending -> pending.result.completeExceptionally(ex));
+            }
+            finally
+            {
+                batch.clear();
+            }
+        }
+
+        rejectQueued();
+    }
+
+    private void rejectQueued()
+    {
+        List<PendingCheckout> left = new ArrayList<>();
+        queue.drainTo(left);
+        left.forEach(pending -> pending.result.completeExceptionally(new RejectedExecutionException("The checkout service stopped.")));
+    }
+
+    private void place(List<PendingCheckout> batch)
+    {
+        List<CheckoutResult> results;
+        try
+        {
+            results = checkoutService.placeAll(batch.stream().map(pending -> pending.userId).toList());
+        }
+        catch (RuntimeException ex)
+        {
+            // a failure that is not about one order (a deadlock, a lost connection) rolled back the whole batch,
+            // so each order is retried in its own transaction and gets its own answer
+            log.warn("Checkout batch of {} failed, placing the orders one by one", batch.size(), ex);
+            for (PendingCheckout pending : batch)
+            {
+                Order order;
+                try
+                {
+                    order = checkoutService.place(pending.userId);
+                }
+                catch (RuntimeException orderEx)
+                {
+                    pending.result.completeExceptionally(orderEx);
+                    continue;
+                }
+                pending.result.complete(order);
+                placed(order);
+            }
+            return;
+        }
+
+        // the batch is committed: answer every caller before touching the in-memory copies
+        for (int i = 0; i < batch.size(); i++)
+        {
+            CheckoutResult result = results.get(i);
+            if (result.isPlaced()) batch.get(i).result.complete(result.getOrder());
+            else batch.get(i).result.completeExceptionally(result.getError());
+        }
+
+        results.stream().filter(CheckoutResult::isPlaced).forEach(result -> placed(result.getOrder()));
+    }
+
+    private void placed(Order order)
+    {
+        try
+        {
+            checkoutService.placed(order);
+        }
+        catch (RuntimeException ex)
+        {
+            // the order is committed, so a stale cart or stock count must not turn it into a failure or a second checkout
+            log.warn("Could not update the cached cart and stock after order {} was placed", order.getOrderId(), ex);
+        }
+    }
+
+    private static class PendingCheckout
+    {
+        private final int userId;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+
+        private PendingCheckout(int userId)
+        {
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.yearup.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.yearup.data.ProductChangeListener;
+import org.yearup.models.Product;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serialized JSON of each product, so a listing only copies bytes instead of running Jackson.
+ *
+ * Entries are keyed by product id and remember the product instance they were written from.
+ * The catalog replaces a product's instance whenever it changes, so a fragment is only reused
+ * for the exact object it was built from; change events also drop the entry right away.
+ */
+@Component
+public class ProductJsonCache implements ProductChangeListener
+{
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, Fragment> fragments = new ConcurrentHashMap<>();
+
+    public ProductJsonCache(ObjectMapper objectMapper)
+    {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * UTF-8 JSON for the product, serialized on first use.
+     */
+    public byte[] json(Product product)
+    {
+        Fragment fragment = fragments.get(product.getProductId());
+        if (fragment != null && fragment.source == product)
+        {
+            return fragment.json;
+        }
+
+        try
+        {
+            byte[] json = objectMapper.writeValueAsBytes(product);
+            fragments.put(product.getProductId(), new Fragment(product, json));
+            return json;
+        }
+        catch (JsonProcessingException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void productsLoaded(List<Product> products)
+    {
+        fragments.clear();
+    }
+
+    @Override
+    public void productSaved(Product product)
+    {
+        fragments.remove(product.getProductId());
+    }
+
+    @Override
+    public void productDeleted(int productId)
+    {
+        fragments.remove(productId);
+    }
+
+    private static class Fragment
+    {
+        private final Product source;
+        private final byte[] json;
+
+        Fragment(Product source, byte[] json)
+        {
+            this.source = source;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.yearup.web;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.yearup.models.Product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Writes {@code List<Product>} responses by concatenating the cached JSON of each product
+ * straight into the response. Spring Boot puts converter beans ahead of the Jackson converter,
+ * so every product listing goes through here; anything else is left to Jackson.
+ */
+@Component
+public class ProductListHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<Product>>
+{
+    private final ProductJsonCache jsonCache;
+
+    public ProductListHttpMessageConverter(ProductJsonCache jsonCache)
+    {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonCache = jsonCache;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType)
+    {
+        return isProductList(type) && canWrite(mediaType);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz)
+    {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected void writeInternal(List<Product> products, Type type, HttpOutputMessage outputMessage) throws IOException
+    {
+        OutputStream body = outputMessage.getBody();
+
+        body.write('[');
+        for (int i = 0; i < products.size(); i++)
+        {
+            if (i > 0) body.write(',');
+            body.write(jsonCache.json(products.get(i)));
+        }
+        body.write(']');
+    }
+
+    @Override
+    public List<Product> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+    {
+        throw new HttpMessageNotReadableException("Product lists are only written by this converter.", inputMessage);
+    }
+
+    @Override
+    protected List<Product> readInternal(Class<? extends List<Product>> clazz, HttpInputMessage inputMessage)
+    {
+        throw new HttpMessageNotReadableException("Product lists are only written by this converter.", inputMessage);
+    }
+
+    private static boolean isProductList(Type type)
+    {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && List.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments()[0] == Product.class;
+    }
+}
@@ -0,0 +1,142 @@
+package org.yearup.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTest
+{
+    private long now;
+    private BoundedCache<Integer, String> cache;
+
+    @BeforeEach
+    public void setup()
+    {
+        now = 0;
+        cache = new BoundedCache<>(2, Duration.ofSeconds(10), () -> now);
+    }
+
+    @Test
+    public void get_shouldLoadOnce_andCountHitsAndMisses()
+    {
+        // arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // act
+        cache.get(1, key -> "one-" + loads.incrementAndGet());
+        String value = cache.get(1, key -> "one-" + loads.incrementAndGet());
+
+        // assert
+        assertEquals("one-1", value, "Because the second lookup should be served from the cache.");
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void put_shouldEvictTheLeastRecentlyUsedEntry()
+    {
+        // arrange
+        cache.put(1, "one");
+        cache.put(2, "two");
+        cache.getIfPresent(1);
+
+        // act
+        cache.put(3, "three");
+
+        // assert
+        assertNull(cache.getIfPresent(2), "Because entry 2 was the least recently used.");
+        assertEquals("one", cache.getIfPresent(1));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    public void get_shouldReload_afterTheTimeToLive()
+    {
+        // arrange
+        cache.put(1, "old");
+        now += Duration.ofSeconds(10).toNanos();
+
+        // act
+        String value = cache.get(1, key -> "new");
+
+        // assert
+        assertEquals("new", value, "Because the cached entry expired.");
+    }
+
+    @Test
+    public void put_withShorterTtl_shouldExpireEarlier()
+    {
+        // arrange
+        cache.put(1, "short", Duration.ofSeconds(1));
+        now += Duration.ofSeconds(1).toNanos();
+
+        // act
+        String value = cache.getIfPresent(1);
+
+        // assert
+        assertNull(value, "Because the entry's own time to live has passed.");
+    }
+
+    @Test
+    public void get_shouldNotStoreALoad_thatRacedWithAnInvalidation()
+    {
+        // act
+        String loaded = cache.get(1, key -> {
+            cache.invalidate(1);
+            return "stale";
+        });
+
+        // assert
+        assertEquals("stale", loaded, "Because the caller still gets what it loaded.");
+        assertNull(cache.getIfPresent(1), "Because the value was invalidated while it was loading.");
+    }
+
+    @Test
+    public void get_fromManyThreads_shouldStayWithinItsSize() throws Exception
+    {
+        // arrange
+        BoundedCache<Integer, Integer> shared = new BoundedCache<>(100, Duration.ofMinutes(1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> readers = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++)
+        {
+            int seed = thread;
+            readers.add(() -> {
+                for (int i = 0; i < 20_000; i++)
+                {
+                    int key = (i * 31 + seed) % 500;
+                    assertEquals(key * 2, shared.get(key, k -> k * 2));
+                    if (i % 1000 == 0) shared.invalidate(key);
+                }
+                return null;
+            });
+        }
+
+        // act
+        try
+        {
+            for (Future<Void> reader : executor.invokeAll(readers))
+            {
+                reader.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // assert
+        assertTrue(shared.size() <= 100, "Because the cache never holds more than its maximum size.");
+        assertEquals(8 * 20_000, shared.hitCount() + shared.missCount());
+    }
+}
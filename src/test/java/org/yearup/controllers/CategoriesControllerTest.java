@@ -0,0 +1,80 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.CategoryDao;
+import org.yearup.data.ProductDao;
+import org.yearup.data.memory.InMemoryCategoryDao;
+import org.yearup.models.Category;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CategoriesControllerTest
+{
+    private InMemoryCategoryDao categoryDao;
+    private CategoriesController controller;
+
+    @BeforeEach
+    public void setup()
+    {
+        CategoryDao delegate = mock(CategoryDao.class);
+        when(delegate.getAllCategories()).thenReturn(List.of(
+                new Category(1, "Electronics", "Gadgets"),
+                new Category(2, "Fashion", "Clothing")
+        ));
+        when(delegate.getById(2)).thenReturn(new Category(2, "Apparel", "Clothing"));
+
+        CatalogVersion catalogVersion = new CatalogVersion();
+        categoryDao = new InMemoryCategoryDao(delegate, catalogVersion::bump);
+        categoryDao.reload();
+
+        controller = new CategoriesController(categoryDao, mock(ProductDao.class), catalogVersion);
+    }
+
+    @Test
+    public void getAll_withAMatchingIfNoneMatch_shouldAnswerNotModified()
+    {
+        // arrange
+        String etag = getAll(null).getHeader(HttpHeaders.ETAG);
+
+        // act
+        MockHttpServletResponse response = getAll(etag);
+
+        // assert
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+    }
+
+    @Test
+    public void getAll_afterACategoryChanges_shouldAnswerWithANewEtag()
+    {
+        // arrange
+        String etag = getAll(null).getHeader(HttpHeaders.ETAG);
+
+        // act
+        categoryDao.update(2, new Category(2, "Apparel", "Clothing"));
+        MockHttpServletResponse response = getAll(etag);
+
+        // assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus(), "Because a category write changes the catalog version.");
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private MockHttpServletResponse getAll(String ifNoneMatch)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/categories");
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.getAll(new ServletWebRequest(request, response));
+        return response;
+    }
+}
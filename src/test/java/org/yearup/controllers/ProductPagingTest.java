@@ -0,0 +1,109 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.ProductDao;
+import org.yearup.data.memory.InMemoryProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductSort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductPagingTest
+{
+    private ProductDao productDao;
+
+    @BeforeEach
+    public void setup()
+    {
+        ProductDao delegate = mock(ProductDao.class);
+        when(delegate.search(null, null, null, null)).thenReturn(List.of(
+                product(1, "Smartphone", "499.99"),
+                product(2, "Laptop", "899.99"),
+                product(3, "Headphones", "99.99"),
+                product(4, "Tablet", "99.99"),
+                product(5, "Jeans", "39.99")
+        ));
+
+        InMemoryProductDao inMemoryProductDao = new InMemoryProductDao(delegate);
+        inMemoryProductDao.reload();
+        productDao = inMemoryProductDao;
+    }
+
+    @Test
+    public void page_shouldFollowTheNextCursor_throughEveryProductInAStableOrder()
+    {
+        // arrange
+        List<Integer> ids = new ArrayList<>();
+        String cursor = null;
+
+        // act
+        do
+        {
+            ResponseEntity<List<Product>> response = ProductPaging.page(productDao, null, null, null, null, 2, "price", cursor);
+            ids.addAll(ids(response.getBody()));
+            cursor = response.getHeaders().getFirst(ProductPaging.NEXT_CURSOR_HEADER);
+        }
+        while (cursor != null);
+
+        // assert
+        assertEquals(List.of(5, 3, 4, 1, 2), ids, "Because the tie on 99.99 is broken by product id.");
+    }
+
+    @Test
+    public void page_withACursorFromADifferentSort_shouldBeABadRequest()
+    {
+        // arrange
+        String cursor = new ProductCursor(ProductSort.NAME, 3, "Headphones").encode();
+
+        // act
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> ProductPaging.page(productDao, null, null, null, null, 2, "price", cursor));
+
+        // assert
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+    }
+
+    @Test
+    public void page_withAMalformedCursor_shouldBeABadRequest()
+    {
+        String[] cursors = {"not base64!", encode("PRICE|1|abc"), encode("PRICE|one|1.00"), encode("COLOR|1|red"), encode("ID")};
+
+        for (String cursor : cursors)
+        {
+            // act
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> ProductPaging.page(productDao, null, null, null, null, 2, "price", cursor), cursor);
+
+            // assert
+            assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus(), cursor);
+        }
+    }
+
+    private static String encode(String raw)
+    {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).collect(Collectors.toList());
+    }
+
+    private static Product product(int productId, String name, String price)
+    {
+        return new Product(productId, name, new BigDecimal(price), 1, "", "Black", 10, false, "no-image.jpg");
+    }
+}
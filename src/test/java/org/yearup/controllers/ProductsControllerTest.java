@@ -0,0 +1,201 @@
+package org.yearup.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.CatalogVersion;
+import org.yearup.data.ProductDao;
+import org.yearup.data.memory.InMemoryProductDao;
+import org.yearup.models.Product;
+import org.yearup.search.ProductFacetIndex;
+import org.yearup.search.ProductSearchIndex;
+import org.yearup.search.ProductSuggester;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductsControllerTest
+{
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ProductDao delegate;
+    private CatalogVersion catalogVersion;
+    private InMemoryProductDao productDao;
+    private ProductsController controller;
+
+    @BeforeEach
+    public void setup()
+    {
+        delegate = mock(ProductDao.class);
+        when(delegate.search(null, null, null, null)).thenReturn(List.of(
+                product(1, "Smartphone", 1, "499.99"),
+                product(2, "Laptop", 1, "899.99"),
+                product(5, "Jeans", 2, "39.99")
+        ));
+
+        when(delegate.getById(1)).thenReturn(product(1, "Smartphone", 1, "449.99"));
+
+        catalogVersion = new CatalogVersion();
+        productDao = new InMemoryProductDao(delegate, List.of(catalogVersion));
+        productDao.reload();
+
+        controller = new ProductsController(productDao, mock(ProductSearchIndex.class), mock(ProductSuggester.class),
+                mock(ProductFacetIndex.class), catalogVersion, objectMapper);
+    }
+
+    @Test
+    public void streamSearch_shouldWriteTheMatchingProducts_asOneJsonArray() throws Exception
+    {
+        // arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // act
+        controller.streamSearch(1, null, null, null, new ServletWebRequest(request, response), response);
+
+        // assert
+        assertEquals("application/json;charset=UTF-8", response.getContentType());
+        JsonNode body = objectMapper.readTree(response.getContentAsString());
+        assertTrue(body.isArray());
+        assertEquals(List.of(1, 2), ids(body), "Because only category 1 was asked for.");
+        assertEquals("Smartphone", body.get(0).get("name").asText());
+    }
+
+    @Test
+    public void streamSearch_withNoMatches_shouldWriteAnEmptyArray() throws Exception
+    {
+        // arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // act
+        controller.streamSearch(999, null, null, null, new ServletWebRequest(request, response), response);
+
+        // assert
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    public void search_withAMatchingIfNoneMatch_shouldAnswerNotModified()
+    {
+        // arrange
+        String etag = get(null).getHeader(HttpHeaders.ETAG);
+
+        // act
+        MockHttpServletResponse response = get(etag);
+
+        // assert
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void search_afterAProductChanges_shouldAnswerWithANewEtag()
+    {
+        // arrange
+        String etag = get(null).getHeader(HttpHeaders.ETAG);
+
+        // act
+        productDao.update(1, product(1, "Smartphone", 1, "449.99"));
+        MockHttpServletResponse response = get(etag);
+
+        // assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus(), "Because the client's copy has the old price.");
+        assertNotEquals(etag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void search_withOnlyIfModifiedSince_shouldNotAnswerNotModified()
+    {
+        // arrange: a date alone cannot tell apart two versions written in the same second
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis() + 60_000);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // act
+        controller.search(null, null, null, null, null, null, null, new ServletWebRequest(request, response));
+
+        // assert
+        assertEquals(HttpStatus.OK.value(), response.getStatus(), "Because only the ETag is used as a validator.");
+    }
+
+    @Test
+    public void addProducts_whenALaterChunkFails_shouldReturnTheIdsImportedBeforeIt()
+    {
+        // arrange: the first chunk of 1000 is written, the second fails as a whole
+        AtomicInteger nextId = new AtomicInteger(100);
+        when(delegate.createAll(anyList()))
+                .thenAnswer(invocation -> {
+                    List<Product> chunk = invocation.getArgument(0);
+                    chunk.forEach(product -> product.setProductId(nextId.getAndIncrement()));
+                    return chunk;
+                })
+                .thenThrow(new RuntimeException("Lock wait timeout exceeded"));
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1500; i++)
+        {
+            ndjson.append("{\"name\":\"Imported ").append(i).append("\",\"price\":9.99,\"categoryId\":3}\n");
+        }
+
+        // act
+        ResponseEntity<List<Integer>> response = controller.addProducts(new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+
+        // assert
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(1000, response.getBody().size(), "Because the client resumes after the products that were imported.");
+        assertEquals(100, response.getBody().get(0));
+        assertNotNull(productDao.getById(1099), "Because the imported chunk reached the catalog.");
+        verify(delegate, times(2)).createAll(anyList());
+    }
+
+    @Test
+    public void addProducts_withABadFirstProduct_shouldBeABadRequest()
+    {
+        // act
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> controller.addProducts(new ByteArrayInputStream("{\"price\":\"free\"}".getBytes(StandardCharsets.UTF_8))));
+
+        // assert
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatus());
+        verify(delegate, never()).createAll(anyList());
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        controller.search(null, null, null, null, null, null, null, new ServletWebRequest(request, response));
+        return response;
+    }
+
+    private static List<Integer> ids(JsonNode products)
+    {
+        List<Integer> ids = new ArrayList<>();
+        products.forEach(product -> ids.add(product.get("productId").asInt()));
+        return ids;
+    }
+
+    private static Product product(int productId, String name, int categoryId, String price)
+    {
+        return new Product(productId, name, new BigDecimal(price), categoryId, "", "Black", 10, false, "no-image.jpg");
+    }
+}
@@ -0,0 +1,87 @@
+package org.yearup.controllers;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.yearup.data.ProductDao;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.data.UserDao;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCartItem;
+
+import java.math.BigDecimal;
+import java.security.Principal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShoppingCartControllerTest
+{
+    private static final int USER_ID = 1;
+
+    private ShoppingCartDao shoppingCartDao;
+    private ProductDao productDao;
+    private Principal principal;
+    private ShoppingCartController controller;
+
+    @BeforeEach
+    public void setup()
+    {
+        shoppingCartDao = mock(ShoppingCartDao.class);
+        productDao = mock(ProductDao.class);
+
+        UserDao userDao = mock(UserDao.class);
+        when(userDao.getIdByUsername("user")).thenReturn(USER_ID);
+        principal = () -> "user";
+
+        controller = new ShoppingCartController(shoppingCartDao, userDao, productDao);
+    }
+
+    @Test
+    public void addProductToCartDelta_shouldReturnTheLine_withCatalogDetails()
+    {
+        // arrange
+        when(shoppingCartDao.addProduct(USER_ID, 5)).thenReturn(line(5, 2));
+        when(productDao.getById(5)).thenReturn(product(5, "19.99"));
+
+        // act
+        ShoppingCartItem item = controller.addProductToCartDelta(5, principal);
+
+        // assert
+        assertEquals(2, item.getQuantity());
+        assertEquals(new BigDecimal("39.98"), item.getLineTotal());
+    }
+
+    @Test
+    public void updateProductInCartDelta_whenTheProductLeftTheCatalog_shouldDropTheLine()
+    {
+        // arrange
+        when(shoppingCartDao.updateQuantity(USER_ID, 7, 3)).thenReturn(line(7, 3));
+        when(productDao.getById(7)).thenReturn(null);
+
+        // act
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> controller.updateProductInCartDelta(7, line(7, 3), principal));
+
+        // assert
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatus(), "Because a line without a product has no price to show.");
+        verify(shoppingCartDao).removeProduct(USER_ID, 7);
+    }
+
+    private static ShoppingCartItem line(int productId, int quantity)
+    {
+        Product product = new Product();
+        product.setProductId(productId);
+
+        ShoppingCartItem item = new ShoppingCartItem();
+        item.setProduct(product);
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static Product product(int productId, String price)
+    {
+        return new Product(productId, "Product " + productId, new BigDecimal(price), 1, "", "Black", 10, false, "no-image.jpg");
+    }
+}
@@ -0,0 +1,90 @@
+package org.yearup.data.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.cache.BoundedCache;
+import org.yearup.data.UserDao;
+import org.yearup.models.User;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingUserDaoTest
+{
+    private UserDao delegate;
+    private CachingUserDao dao;
+
+    @BeforeEach
+    public void setup()
+    {
+        delegate = mock(UserDao.class);
+        dao = new CachingUserDao(delegate, new BoundedCache<>(100, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    public void getByUserName_shouldOnlyQueryOnce_perUsername()
+    {
+        // arrange
+        when(delegate.getByUserName("user")).thenReturn(new User(1, "user", "hash", "ROLE_USER"));
+
+        // act
+        dao.getByUserName("user");
+        dao.getByUserName("USER");
+        int userId = dao.getIdByUsername("user");
+
+        // assert
+        assertEquals(1, userId);
+        verify(delegate, times(1)).getByUserName(anyString());
+    }
+
+    @Test
+    public void getByUserName_shouldReturnCopies()
+    {
+        // arrange
+        when(delegate.getByUserName("user")).thenReturn(new User(1, "user", "hash", "ROLE_USER"));
+
+        // act
+        dao.getByUserName("user").setPassword("");
+
+        // assert
+        assertEquals("hash", dao.getByUserName("user").getPassword(), "Because changing a returned user must not change the cache.");
+    }
+
+    @Test
+    public void exists_shouldCacheMisses_untilTheUserIsCreated()
+    {
+        // arrange
+        when(delegate.getByUserName("new")).thenReturn(null);
+        when(delegate.create(any())).thenReturn(new User(3, "new", "", "ROLE_USER"));
+
+        // act
+        boolean before = dao.exists("new");
+        dao.exists("new");
+        dao.create(new User(0, "new", "secret", "ROLE_USER"));
+        when(delegate.getByUserName("new")).thenReturn(new User(3, "new", "hash", "ROLE_USER"));
+        boolean after = dao.exists("new");
+
+        // assert
+        assertFalse(before);
+        assertTrue(after, "Because create should drop the cached miss.");
+        verify(delegate, times(2)).getByUserName("new");
+    }
+
+    @Test
+    public void exists_whenTheLookupFails_shouldNotCacheAMiss()
+    {
+        // arrange
+        when(delegate.getByUserName("user"))
+                .thenThrow(new RuntimeException("Connection is not available, request timed out"))
+                .thenReturn(new User(1, "user", "hash", "ROLE_USER"));
+
+        // act
+        assertThrows(RuntimeException.class, () -> dao.exists("user"));
+        boolean exists = dao.exists("user");
+
+        // assert
+        assertTrue(exists, "Because a failed lookup says nothing about whether the user exists.");
+    }
+}
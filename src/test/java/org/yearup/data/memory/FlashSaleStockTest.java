@@ -0,0 +1,156 @@
+package org.yearup.data.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.ProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FlashSaleStockTest
+{
+    private ProductDao productDao;
+    private FlashSaleStock stock;
+
+    @BeforeEach
+    public void setup()
+    {
+        productDao = mock(ProductDao.class);
+        when(productDao.getByIds(anyCollection())).thenReturn(List.of(product(1, 100), product(2, 3)));
+        when(productDao.adjustAll(anyList())).thenAnswer(invocation -> {
+            List<ProductAdjustment> adjustments = invocation.getArgument(0);
+            return adjustments.stream()
+                              .map(adjustment -> new ProductAdjustmentResult(adjustment.getProductId(), ProductAdjustmentResult.Status.UPDATED, 0, BigDecimal.ONE))
+                              .toList();
+        });
+
+        // a long interval keeps the background reconciler out of the way
+        stock = new FlashSaleStock(productDao, List.of(1, 2), 16, Duration.ofHours(1));
+        stock.load();
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        stock.close();
+    }
+
+    @Test
+    public void reserve_fromManyThreads_shouldNeverOversell() throws Exception
+    {
+        // arrange
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 32; i++)
+        {
+            tasks.add(() -> {
+                int sold = 0;
+                for (int j = 0; j < 10; j++)
+                {
+                    if (stock.reserve(Map.of(1, 1)).isEmpty()) sold++;
+                }
+                return sold;
+            });
+        }
+
+        try
+        {
+            // act
+            int sold = 0;
+            for (Future<Integer> result : executor.invokeAll(tasks))
+            {
+                sold += result.get();
+            }
+
+            // assert
+            assertEquals(100, sold, "Because exactly the 100 in stock can be sold.");
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void reserve_withAShortProduct_shouldTakeNothing()
+    {
+        // act
+        List<Integer> shortProductIds = stock.reserve(Map.of(1, 2, 2, 5));
+
+        // assert
+        assertEquals(List.of(2), shortProductIds, "Because only 3 of product 2 are left.");
+        assertTrue(stock.reserve(Map.of(1, 100)).isEmpty(), "Because the 2 of product 1 were given back.");
+    }
+
+    @Test
+    public void reconcile_shouldWriteEachSaleOnce()
+    {
+        // arrange
+        stock.reserve(Map.of(1, 2));
+        stock.reserve(Map.of(1, 1, 2, 1));
+        stock.release(Map.of(2, 1));
+
+        // act
+        stock.reconcile();
+        stock.reconcile();
+
+        // assert
+        verify(productDao, times(1)).adjustAll(argThat(adjustments -> adjustments.size() == 1
+                && adjustments.get(0).getProductId() == 1 && adjustments.get(0).getStockDelta() == -3));
+    }
+
+    @Test
+    public void reconcile_whenTheStoredStockIsTooLow_shouldWriteItDownToZero()
+    {
+        // arrange: 3 were sold, but the stored stock was lowered to 1 during the sale
+        stock.reserve(Map.of(1, 3));
+        when(productDao.adjustAll(anyList()))
+                .thenReturn(List.of(new ProductAdjustmentResult(1, ProductAdjustmentResult.Status.REJECTED, 1, BigDecimal.ONE)))
+                .thenReturn(List.of(new ProductAdjustmentResult(1, ProductAdjustmentResult.Status.UPDATED, 0, BigDecimal.ONE)));
+
+        // act
+        stock.reconcile();
+        stock.reconcile();
+
+        // assert
+        verify(productDao).adjustAll(argThat(adjustments -> adjustments.size() == 1 && adjustments.get(0).getStockDelta() == -3));
+        verify(productDao).adjustAll(argThat(adjustments -> adjustments.size() == 1 && adjustments.get(0).getStockDelta() == -1));
+        verify(productDao, times(2)).adjustAll(anyList());
+    }
+
+    @Test
+    public void reconcile_whenTheProductIsNotFound_shouldKeepTheSalePending()
+    {
+        // arrange
+        stock.reserve(Map.of(1, 2));
+        when(productDao.adjustAll(anyList()))
+                .thenReturn(List.of(new ProductAdjustmentResult(1, ProductAdjustmentResult.Status.NOT_FOUND, null, null)));
+
+        // act
+        stock.reconcile();
+        stock.reconcile();
+
+        // assert
+        verify(productDao, times(2)).adjustAll(argThat(adjustments -> adjustments.get(0).getStockDelta() == -2));
+    }
+
+    private static Product product(int productId, int stock)
+    {
+        return new Product(productId, "Product " + productId, BigDecimal.ONE, 1, "", "", stock, false, "");
+    }
+}
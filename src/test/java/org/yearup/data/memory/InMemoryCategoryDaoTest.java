@@ -0,0 +1,59 @@
+package org.yearup.data.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.mysql.BaseDaoTestClass;
+import org.yearup.data.mysql.MySqlCategoryDao;
+import org.yearup.models.Category;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryCategoryDaoTest extends BaseDaoTestClass
+{
+    private InMemoryCategoryDao dao;
+
+    @BeforeEach
+    public void setup()
+    {
+        dao = new InMemoryCategoryDao(new MySqlCategoryDao(dataSource));
+        dao.reload();
+    }
+
+    @Test
+    public void getAllCategories_shouldReturnTheLoadedCategories()
+    {
+        // act
+        List<String> names = dao.getAllCategories().stream().map(Category::getName).collect(Collectors.toList());
+
+        // assert
+        assertEquals(List.of("Electronics", "Fashion", "Home & Kitchen"), names);
+    }
+
+    @Test
+    public void create_update_andDelete_shouldSwapInANewSnapshot()
+    {
+        // arrange
+        Category category = new Category();
+        category.setName("Toys");
+        category.setDescription("Games and toys.");
+
+        // act
+        int categoryId = dao.create(category).getCategoryId();
+        category.setName("Toys & Games");
+        dao.update(categoryId, category);
+
+        // assert
+        assertEquals("Toys & Games", dao.getById(categoryId).getName(), "Because the update should be visible.");
+        assertEquals(4, dao.getAllCategories().size(), "Because one category was added.");
+
+        // act
+        dao.delete(categoryId);
+
+        // assert
+        assertNull(dao.getById(categoryId), "Because the category was deleted.");
+        assertEquals(3, dao.getAllCategories().size(), "Because the new category was deleted.");
+    }
+}
@@ -0,0 +1,102 @@
+package org.yearup.data.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.mysql.BaseDaoTestClass;
+import org.yearup.data.mysql.MySqlProductDao;
+import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryProductDaoTest extends BaseDaoTestClass
+{
+    private MySqlProductDao mySqlDao;
+    private InMemoryProductDao dao;
+
+    @BeforeEach
+    public void setup()
+    {
+        mySqlDao = new MySqlProductDao(dataSource);
+        dao = new InMemoryProductDao(mySqlDao);
+        dao.reload();
+    }
+
+    @Test
+    public void search_shouldMatchDatabase_forEveryFilterCombination()
+    {
+        // arrange
+        Integer[] categories = {null, 1, 2, 3, 999};
+        BigDecimal[] minPrices = {null, new BigDecimal("50.00"), new BigDecimal("99.99")};
+        BigDecimal[] maxPrices = {null, new BigDecimal("99.99"), new BigDecimal("150.00")};
+        String[] subCategories = {null, "", "Blue", "black", "NonExistent"};
+
+        for (Integer categoryId : categories)
+            for (BigDecimal minPrice : minPrices)
+                for (BigDecimal maxPrice : maxPrices)
+                    for (String subCategory : subCategories)
+                    {
+                        // act
+                        List<Integer> expected = ids(mySqlDao.search(categoryId, minPrice, maxPrice, subCategory));
+                        List<Integer> actual = ids(dao.search(categoryId, minPrice, maxPrice, subCategory));
+
+                        // assert
+                        assertEquals(expected, actual, String.format("Because cat=%s min=%s max=%s sub=%s should match MySQL.",
+                                categoryId, minPrice, maxPrice, subCategory));
+                    }
+    }
+
+    @Test
+    public void update_shouldPatchTheIndexes()
+    {
+        // arrange
+        Product product = new Product(1, "Smartphone", new BigDecimal("5.00"), 3,
+                "A powerful and feature-rich smartphone for all your communication needs.", "Black", 50, false, "smartphone.jpg");
+
+        // act
+        dao.update(1, product);
+
+        // assert
+        assertTrue(ids(dao.listByCategoryId(3)).contains(1), "Because product 1 moved to category 3.");
+        assertFalse(ids(dao.listByCategoryId(1)).contains(1), "Because product 1 left category 1.");
+        assertEquals(List.of(1), ids(dao.search(null, null, new BigDecimal("10.00"), null)),
+                "Because product 1 is now the only product under 10.00.");
+    }
+
+    @Test
+    public void delete_shouldRemoveTheProductFromTheCatalog()
+    {
+        // act
+        dao.delete(12);
+
+        // assert
+        assertNull(dao.getById(12), "Because product 12 was deleted.");
+        assertEquals(11, dao.search(null, null, null, null).size(), "Because one of the 12 products was deleted.");
+    }
+
+    @Test
+    public void stockTaken_afterAnAdjustmentInTheGap_shouldNotTakeTheStockTwice()
+    {
+        // arrange: a checkout of 2 commits straight to the database, then a price change runs before its
+        // stockTaken and stores the stock the checkout left
+        mySqlDao.adjustAll(List.of(new ProductAdjustment(1, -2, null)));
+        dao.adjustAll(List.of(new ProductAdjustment(1, null, new BigDecimal("449.99"))));
+
+        // act
+        dao.stockTaken(Set.of(1));
+
+        // assert
+        assertEquals(48, dao.getById(1).getStock(), "Because the catalog holds the stock the database stored.");
+        assertEquals(new BigDecimal("449.99"), dao.getById(1).getPrice());
+    }
+
+    private static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).sorted().collect(Collectors.toList());
+    }
+}
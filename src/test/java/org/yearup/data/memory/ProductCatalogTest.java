@@ -0,0 +1,141 @@
+package org.yearup.data.memory;
+
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Product;
+import org.yearup.models.ProductCursor;
+import org.yearup.models.ProductPage;
+import org.yearup.models.ProductSort;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogTest
+{
+    private final ProductCatalog catalog = new ProductCatalog(List.of(
+            product(1, "Smartphone", 1, "Black", "499.99"),
+            product(2, "laptop", 1, "Silver", "899.99"),
+            product(3, "Headphones", 1, "Black", "99.99"),
+            product(4, "Tablet", 1, "Black", "99.99"),
+            product(5, "Jeans", 2, "Blue", "39.99"),
+            product(6, "T-shirt", 2, "black", "19.99"),
+            product(7, "Sneakers", 2, "White", "99.99"),
+            product(8, "Blender", 3, "Silver", "79.99"),
+            product(9, "Apron", 3, "black", "19.99")
+    ));
+
+    @Test
+    public void page_shouldWalkEveryFilterAndSort_inTheSameOrderAsASortedSearch()
+    {
+        Integer[] categories = {null, 1, 2, 999};
+        BigDecimal[] minPrices = {null, new BigDecimal("39.99"), new BigDecimal("99.99")};
+        BigDecimal[] maxPrices = {null, new BigDecimal("99.99"), new BigDecimal("500.00")};
+        String[] subCategories = {null, "", "BLACK", "Silver"};
+
+        for (ProductSort sort : ProductSort.values())
+            for (Integer categoryId : categories)
+                for (BigDecimal minPrice : minPrices)
+                    for (BigDecimal maxPrice : maxPrices)
+                        for (String subCategory : subCategories)
+                        {
+                            // arrange
+                            List<Integer> expected = catalog.search(categoryId, minPrice, maxPrice, subCategory).stream()
+                                                            .sorted(comparator(sort))
+                                                            .map(Product::getProductId)
+                                                            .collect(Collectors.toList());
+
+                            // act
+                            List<Integer> actual = walk(categoryId, minPrice, maxPrice, subCategory, sort, 2);
+
+                            // assert
+                            assertEquals(expected, actual, String.format("Because sort=%s cat=%s min=%s max=%s sub=%s should page through every match once.",
+                                    sort, categoryId, minPrice, maxPrice, subCategory));
+                        }
+    }
+
+    @Test
+    public void page_shouldResumeAfterTheCursor_evenWhenThatProductIsGone()
+    {
+        // arrange: the page ended on product 3, which has since been deleted
+        ProductCursor after = new ProductCursor(ProductSort.PRICE, 3, "99.99");
+
+        // act
+        ProductPage page = catalog.without(3).page(null, null, null, null, ProductSort.PRICE, after, 10);
+
+        // assert
+        assertEquals(List.of(4, 7, 1, 2), ids(page.getProducts()), "Because ties on price continue by product id.");
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void page_withALastPageThatIsExactlyFull_shouldHaveNoNextCursor()
+    {
+        // act
+        ProductPage page = catalog.page(3, null, null, null, ProductSort.ID, null, 2);
+
+        // assert
+        assertEquals(List.of(8, 9), ids(page.getProducts()));
+        assertFalse(page.hasNext(), "Because there is no third product in category 3.");
+    }
+
+    @Test
+    public void withStock_shouldReplaceTheProducts_andKeepEveryIndex()
+    {
+        // act
+        ProductCatalog patched = catalog.withStock(List.of(product(3, "Headphones", 1, "Black", "99.99", 0)));
+
+        // assert
+        assertEquals(0, patched.get(3).getStock());
+        assertEquals(10, catalog.get(3).getStock(), "Because the old snapshot is left as it was.");
+        assertEquals(ids(catalog.search(1, null, new BigDecimal("99.99"), "black")),
+                ids(patched.search(1, null, new BigDecimal("99.99"), "black")));
+        assertSame(patched.get(3), patched.page(1, null, null, null, ProductSort.PRICE, null, 1).getProducts().get(0),
+                "Because pages read the patched product.");
+    }
+
+    private List<Integer> walk(Integer categoryId, BigDecimal minPrice, BigDecimal maxPrice, String subCategory, ProductSort sort, int limit)
+    {
+        List<Integer> ids = new ArrayList<>();
+        ProductCursor after = null;
+        do
+        {
+            // the cursor goes through its wire form, as it would between two requests
+            ProductPage page = catalog.page(categoryId, minPrice, maxPrice, subCategory, sort, after, limit);
+            ids.addAll(ids(page.getProducts()));
+            after = page.hasNext() ? ProductCursor.decode(page.getNext().encode()) : null;
+        }
+        while (after != null);
+
+        return ids;
+    }
+
+    private static Comparator<Product> comparator(ProductSort sort)
+    {
+        Comparator<Product> byId = Comparator.comparingInt(Product::getProductId);
+        return switch (sort)
+        {
+            case PRICE -> Comparator.comparing(Product::getPrice).thenComparing(byId);
+            case NAME -> Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+            case ID -> byId;
+        };
+    }
+
+    private static List<Integer> ids(List<Product> products)
+    {
+        return products.stream().map(Product::getProductId).collect(Collectors.toList());
+    }
+
+    private static Product product(int productId, String name, int categoryId, String subCategory, String price)
+    {
+        return product(productId, name, categoryId, subCategory, price, 10);
+    }
+
+    private static Product product(int productId, String name, int categoryId, String subCategory, String price, int stock)
+    {
+        return new Product(productId, name, new BigDecimal(price), categoryId, "", subCategory, stock, false, "no-image.jpg");
+    }
+}
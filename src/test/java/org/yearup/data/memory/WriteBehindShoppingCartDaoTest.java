@@ -0,0 +1,234 @@
+package org.yearup.data.memory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.ProductDao;
+import org.yearup.data.ShoppingCartDao;
+import org.yearup.models.CartOperation;
+import org.yearup.models.Product;
+import org.yearup.models.ShoppingCart;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WriteBehindShoppingCartDaoTest
+{
+    private static final int USER_ID = 1;
+
+    private ShoppingCartDao delegate;
+    private ProductDao productDao;
+    private WriteBehindShoppingCartDao dao;
+
+    @BeforeEach
+    public void setup()
+    {
+        delegate = mock(ShoppingCartDao.class);
+        when(delegate.getByUserId(USER_ID)).thenReturn(new ShoppingCart());
+
+        productDao = mock(ProductDao.class);
+        when(productDao.getById(anyInt())).thenAnswer(invocation -> product(invocation.getArgument(0)));
+
+        // a long interval keeps the background flusher out of the way
+        dao = new WriteBehindShoppingCartDao(delegate, productDao, Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        dao.close();
+    }
+
+    @Test
+    public void changes_shouldBeServedFromMemory_withoutWritingThrough()
+    {
+        // act
+        dao.addProduct(USER_ID, 5);
+        dao.addProduct(USER_ID, 5);
+        ShoppingCart cart = dao.getByUserId(USER_ID);
+
+        // assert
+        assertEquals(2, cart.get(5).getQuantity());
+        verify(delegate, times(1)).getByUserId(USER_ID);
+        verify(delegate, never()).apply(anyInt(), anyList());
+    }
+
+    @Test
+    public void evict_shouldReloadTheCart_fromTheDatabase()
+    {
+        // arrange
+        dao.addProduct(USER_ID, 5);
+        dao.flush(USER_ID);
+
+        // act
+        dao.evict(USER_ID);
+        ShoppingCart cart = dao.getByUserId(USER_ID);
+
+        // assert
+        assertTrue(cart.getItems().isEmpty(), "Because the stored cart is empty after checkout.");
+        verify(delegate, times(2)).getByUserId(USER_ID);
+    }
+
+    @Test
+    public void evict_shouldWriteChangesMadeAfterTheLastFlush()
+    {
+        // arrange: the checkout flushed, then another product was added before the cart was evicted
+        dao.addProduct(USER_ID, 5);
+        dao.flush(USER_ID);
+        dao.addProduct(USER_ID, 7);
+
+        // act
+        dao.evict(USER_ID);
+
+        // assert
+        verify(delegate).apply(eq(USER_ID), argThat(operations -> operations.size() == 1
+                && operations.get(0).getProductId() == 7 && operations.get(0).getQuantity() == 1));
+    }
+
+    @Test
+    public void flush_shouldCoalesceChanges_intoOneWritePerLine()
+    {
+        // arrange
+        for (int i = 0; i < 10; i++)
+        {
+            dao.addProduct(USER_ID, 5);
+        }
+        dao.updateQuantity(USER_ID, 5, 3);
+        dao.addProduct(USER_ID, 7);
+        dao.removeProduct(USER_ID, 7);
+
+        // act
+        dao.flush(USER_ID);
+        dao.flush(USER_ID);
+
+        // assert
+        verify(delegate, times(1)).apply(eq(USER_ID), argThat(operations -> operations.size() == 2
+                && operations.stream().anyMatch(op -> op.getOp() == CartOperation.Type.SET && op.getProductId() == 5 && op.getQuantity() == 3)
+                && operations.stream().anyMatch(op -> op.getOp() == CartOperation.Type.REMOVE && op.getProductId() == 7)));
+    }
+
+    @Test
+    public void close_shouldFlushPendingChanges()
+    {
+        // arrange
+        dao.addProduct(USER_ID, 5);
+
+        // act
+        dao.close();
+
+        // assert
+        verify(delegate).applyAll(argThat(operationsByUser -> operationsByUser.get(USER_ID).size() == 1));
+    }
+
+    @Test
+    public void flush_shouldKeepChangesDirty_whenTheWriteFails()
+    {
+        // arrange
+        dao.addProduct(USER_ID, 5);
+        doThrow(new RuntimeException("database down")).doNothing().when(delegate).apply(anyInt(), anyList());
+
+        // act
+        assertThrows(RuntimeException.class, () -> dao.flush(USER_ID));
+        dao.flush(USER_ID);
+
+        // assert
+        verify(delegate, times(2)).apply(eq(USER_ID), anyList());
+    }
+
+    @Test
+    public void close_shouldWriteEveryDirtyCart_inOneBatch()
+    {
+        // arrange
+        when(delegate.getByUserId(2)).thenReturn(new ShoppingCart());
+        dao.addProduct(USER_ID, 5);
+        dao.addProduct(2, 7);
+        dao.addProduct(2, 8);
+
+        // act
+        dao.close();
+
+        // assert
+        verify(delegate).applyAll(argThat(operationsByUser -> operationsByUser.size() == 2
+                && operationsByUser.get(USER_ID).size() == 1
+                && operationsByUser.get(2).size() == 2));
+        verify(delegate, never()).apply(anyInt(), anyList());
+    }
+
+    @Test
+    public void close_whenTheBatchFails_shouldStillWriteTheCartsThatCanBeWritten()
+    {
+        // arrange
+        when(delegate.getByUserId(2)).thenReturn(new ShoppingCart());
+        dao.addProduct(USER_ID, 5);
+        dao.addProduct(2, 7);
+        doThrow(new RuntimeException("Deadlock found when trying to get lock")).when(delegate).applyAll(anyMap());
+        doThrow(new RuntimeException("Cannot add or update a child row")).when(delegate).apply(eq(2), anyList());
+
+        // act
+        dao.close();
+
+        // assert
+        verify(delegate).apply(eq(USER_ID), argThat(operations -> operations.size() == 1));
+        verify(delegate).apply(eq(2), anyList());
+    }
+
+    @Test
+    public void flush_shouldDropLines_whoseProductWasDeleted()
+    {
+        // arrange
+        dao.addProduct(USER_ID, 5);
+        dao.addProduct(USER_ID, 7);
+        when(productDao.getById(7)).thenReturn(null);
+
+        // act
+        dao.flush(USER_ID);
+
+        // assert
+        verify(delegate).apply(eq(USER_ID), argThat(operations -> operations.size() == 2
+                && operations.stream().anyMatch(op -> op.getOp() == CartOperation.Type.SET && op.getProductId() == 5)
+                && operations.stream().anyMatch(op -> op.getOp() == CartOperation.Type.REMOVE && op.getProductId() == 7)));
+        assertNull(dao.getByUserId(USER_ID).get(7), "Because the line was dropped from the cart.");
+    }
+
+    @Test
+    public void evict_ofACleanCart_shouldNotWaitForTheBatchOfOtherCarts() throws Exception
+    {
+        // arrange: user 1's cart is loaded but clean, user 2's batch is stuck in the database
+        CountDownLatch batchStarted = new CountDownLatch(1);
+        CountDownLatch releaseBatch = new CountDownLatch(1);
+        when(delegate.getByUserId(2)).thenReturn(new ShoppingCart());
+        doAnswer(invocation -> {
+            batchStarted.countDown();
+            releaseBatch.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(delegate).applyAll(anyMap());
+
+        dao.getByUserId(USER_ID);
+        dao.addProduct(2, 7);
+        CompletableFuture<Void> flushing = CompletableFuture.runAsync(dao::close);
+        assertTrue(batchStarted.await(5, TimeUnit.SECONDS));
+
+        try
+        {
+            // act & assert
+            CompletableFuture.runAsync(() -> dao.evict(USER_ID)).get(1, TimeUnit.SECONDS);
+        }
+        finally
+        {
+            releaseBatch.countDown();
+            flushing.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static Product product(int productId)
+    {
+        return new Product(productId, "Product " + productId, new BigDecimal("10.00"), 1, "", "Black", 10, false, "no-image.jpg");
+    }
+}
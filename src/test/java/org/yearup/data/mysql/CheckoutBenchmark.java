@@ -0,0 +1,169 @@
+package org.yearup.data.mysql;
+
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yearup.configurations.DatabaseConfig;
+import org.yearup.models.CartOperation;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+import org.yearup.models.Profile;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.ShoppingCartItem;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout latency against cart size: the old flow, with a connection and an autocommitted
+ * statement per step and per line item, against the single transaction of {@link MySqlCheckoutDao}.
+ *
+ * Needs a loaded easyshop database; the orders it creates are deleted and the stock it takes is
+ * put back afterwards.
+ *
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-Ddatasource.url=jdbc:mysql://localhost:3306/easyshop -Ddatasource.password=... \
+ *     -cp %classpath org.openjdk.jmh.Main CheckoutBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark
+{
+    private static final int USER_ID = 1;
+
+    @Param({"1", "10", "30"})
+    private int cartSize;
+
+    private BasicDataSource dataSource;
+    private MySqlShoppingCartDao shoppingCartDao;
+    private MySqlProfileDao profileDao;
+    private MySqlOrderDao orderDao;
+    private MySqlOrderLineItemDao orderLineItemDao;
+    private MySqlCheckoutDao checkoutDao;
+    private List<CartOperation> fill;
+    private Map<Integer, Integer> stock;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        dataSource = new DatabaseConfig(
+                System.getProperty("datasource.url", "jdbc:mysql://localhost:3306/easyshop"),
+                System.getProperty("datasource.username", "root"),
+                System.getProperty("datasource.password", "yearup")).dataSource();
+
+        shoppingCartDao = new MySqlShoppingCartDao(dataSource);
+        profileDao = new MySqlProfileDao(dataSource);
+        orderDao = new MySqlOrderDao(dataSource);
+        orderLineItemDao = new MySqlOrderLineItemDao(dataSource);
+        checkoutDao = new MySqlCheckoutDao(dataSource);
+
+        fill = new ArrayList<>();
+        for (int productId = 1; productId <= cartSize; productId++)
+        {
+            fill.add(new CartOperation(CartOperation.Type.SET, productId, 2));
+        }
+
+        stock = new HashMap<>();
+        new MySqlProductDao(dataSource).getByIds(fill.stream().map(CartOperation::getProductId).toList())
+                                        .forEach(product -> stock.put(product.getProductId(), product.getStock()));
+    }
+
+    @Setup(Level.Invocation)
+    public void fillCart() throws SQLException
+    {
+        shoppingCartDao.apply(USER_ID, fill);
+
+        // checkout takes stock, so it is topped up to keep every invocation sellable
+        try (Connection connection = dataSource.getConnection())
+        {
+            PreparedStatement statement = connection.prepareStatement("UPDATE products SET stock = 1000 WHERE product_id <= ?");
+            statement.setInt(1, cartSize);
+            statement.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException
+    {
+        try (Connection connection = dataSource.getConnection())
+        {
+            PreparedStatement lines = connection.prepareStatement(
+                    "DELETE li FROM order_line_items li JOIN orders o ON o.order_id = li.order_id WHERE o.user_id = ?");
+            lines.setInt(1, USER_ID);
+            lines.executeUpdate();
+
+            PreparedStatement orders = connection.prepareStatement("DELETE FROM orders WHERE user_id = ?");
+            orders.setInt(1, USER_ID);
+            orders.executeUpdate();
+
+            PreparedStatement restock = connection.prepareStatement("UPDATE products SET stock = ? WHERE product_id = ?");
+            for (Map.Entry<Integer, Integer> entry : stock.entrySet())
+            {
+                restock.setInt(1, entry.getValue());
+                restock.setInt(2, entry.getKey());
+                restock.executeUpdate();
+            }
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Order perStatement()
+    {
+        Profile profile = profileDao.getByUserId(USER_ID);
+        ShoppingCart cart = shoppingCartDao.getByUserId(USER_ID);
+
+        Order order = new Order();
+        order.setUserId(USER_ID);
+        order.setDate(LocalDateTime.now());
+        order.setAddress(profile.getAddress());
+        order.setCity(profile.getCity());
+        order.setState(profile.getState());
+        order.setZip(profile.getZip());
+        order.setShippingAmount(BigDecimal.ZERO);
+        Order created = orderDao.create(order);
+
+        for (ShoppingCartItem cartItem : cart.getItems().values())
+        {
+            OrderLineItem lineItem = new OrderLineItem();
+            lineItem.setOrderId(created.getOrderId());
+            lineItem.setProductId(cartItem.getProductId());
+            lineItem.setSalesPrice(cartItem.getProduct().getPrice());
+            lineItem.setQuantity(cartItem.getQuantity());
+            lineItem.setDiscount(cartItem.getDiscountPercent());
+            orderLineItemDao.create(lineItem);
+        }
+
+        shoppingCartDao.clearCart(USER_ID);
+        return created;
+    }
+
+    @Benchmark
+    public Order singleTransaction()
+    {
+        return checkoutDao.checkout(USER_ID, BigDecimal.ZERO);
+    }
+}
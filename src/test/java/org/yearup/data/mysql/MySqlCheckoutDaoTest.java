@@ -0,0 +1,288 @@
+package org.yearup.data.mysql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.yearup.data.CheckoutException;
+import org.yearup.data.CheckoutResult;
+import org.yearup.models.Order;
+import org.yearup.models.OrderLineItem;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySqlCheckoutDaoTest extends BaseDaoTestClass
+{
+    private static final String CONTENTION_USER_PREFIX = "checkout-contention-";
+
+    @Value("${datasource.url}")
+    private String serverUrl;
+    @Value("${datasource.testdb}")
+    private String testDb;
+    @Value("${datasource.username}")
+    private String username;
+    @Value("${datasource.password}")
+    private String password;
+
+    private MySqlCheckoutDao dao;
+    private MySqlShoppingCartDao cartDao;
+    private MySqlProductDao productDao;
+    // a connection per call, so concurrent checkouts really run in separate transactions
+    private DriverManagerDataSource concurrentDataSource;
+
+    @BeforeEach
+    public void setup()
+    {
+        dao = new MySqlCheckoutDao(dataSource);
+        cartDao = new MySqlShoppingCartDao(dataSource);
+        productDao = new MySqlProductDao(dataSource);
+        concurrentDataSource = new DriverManagerDataSource(String.format("%s/%s", serverUrl, testDb), username, password);
+    }
+
+    @Test
+    public void checkout_shouldCreateTheOrderWithEveryLine_andEmptyTheCart()
+    {
+        // arrange
+        int stock = productDao.getById(3).getStock();
+        cartDao.addProduct(1, 1);
+        cartDao.addProduct(1, 3);
+        cartDao.addProduct(1, 3);
+
+        // act
+        Order order = dao.checkout(1, BigDecimal.ZERO);
+
+        // assert
+        assertTrue(order.getOrderId() > 0, "Because the order should have been inserted.");
+        assertEquals("789 Oak Avenue", order.getAddress(), "Because the address comes from the profile.");
+        assertEquals(List.of(1, 3), order.getLineItems().stream().map(OrderLineItem::getProductId).collect(Collectors.toList()));
+        assertEquals(2, order.getLineItems().get(1).getQuantity(), "Because product 3 was added twice.");
+        assertTrue(order.getLineItems().stream().allMatch(line -> line.getOrderLineItemId() > 0 && line.getOrderId() == order.getOrderId()),
+                "Because every line should carry its generated id and the order id.");
+        assertTrue(cartDao.getByUserId(1).getItems().isEmpty(), "Because checkout empties the cart.");
+        assertEquals(stock - 2, productDao.getById(3).getStock(), "Because two of product 3 were sold.");
+    }
+
+    @Test
+    public void checkout_withAShortLine_shouldFailWithTheShortProducts() throws SQLException
+    {
+        // arrange
+        setStock(dataSource.getConnection(), 3, 1);
+        cartDao.addProduct(1, 1);
+        cartDao.addProduct(1, 3);
+        cartDao.addProduct(1, 3);
+
+        // act
+        CheckoutException e = assertThrows(CheckoutException.class, () -> dao.checkout(1, BigDecimal.ZERO));
+
+        // assert
+        assertEquals(CheckoutException.Reason.OUT_OF_STOCK, e.getReason());
+        assertEquals(List.of(3), e.getShortProductIds(), "Because only one of product 3 is left for a line of two.");
+    }
+
+    @Test
+    public void checkout_withAnEmptyCart_shouldFail()
+    {
+        // act
+        CheckoutException e = assertThrows(CheckoutException.class, () -> dao.checkout(1, BigDecimal.ZERO));
+
+        // assert
+        assertEquals(CheckoutException.Reason.CART_EMPTY, e.getReason());
+    }
+
+    @Test
+    public void checkout_withoutAProfile_shouldFail()
+    {
+        // arrange: user 3 has no profile
+        cartDao.addProduct(3, 1);
+
+        // act
+        CheckoutException e = assertThrows(CheckoutException.class, () -> dao.checkout(3, BigDecimal.ZERO));
+
+        // assert
+        assertEquals(CheckoutException.Reason.PROFILE_NOT_FOUND, e.getReason());
+        assertFalse(cartDao.getByUserId(3).getItems().isEmpty(), "Because a failed checkout leaves the cart alone.");
+    }
+
+    @Test
+    public void checkoutAll_shouldUndoOnlyTheOrderThatFailed() throws SQLException
+    {
+        // arrange: user 2 wants two of product 3, which has one left
+        setStock(dataSource.getConnection(), 3, 1);
+        cartDao.addProduct(1, 1);
+        cartDao.addProduct(2, 3);
+        cartDao.addProduct(2, 3);
+
+        // act
+        List<CheckoutResult> results = dao.checkoutAll(List.of(1, 2), BigDecimal.ZERO);
+
+        // assert
+        assertTrue(results.get(0).isPlaced(), "Because user 1's cart can be sold.");
+        assertEquals(CheckoutException.Reason.OUT_OF_STOCK, results.get(1).getError().getReason());
+        assertEquals(1, productDao.getById(3).getStock(), "Because the failed order's stock was rolled back to its savepoint.");
+        assertEquals(2, cartDao.getByUserId(2).get(3).getQuantity(), "Because the failed order leaves its cart alone.");
+        assertTrue(cartDao.getByUserId(1).getItems().isEmpty(), "Because the placed order emptied its cart.");
+    }
+
+    @Test
+    public void checkout_fromManyThreads_shouldNeverOversell() throws Exception
+    {
+        // arrange: 200 users each with one of a product that has 50 in stock
+        int checkouts = 200;
+        int stock = 50;
+        MySqlCheckoutDao concurrentDao = new MySqlCheckoutDao(concurrentDataSource);
+        ExecutorService executor = Executors.newFixedThreadPool(50);
+        int productId = -1;
+
+        try (Connection connection = concurrentDataSource.getConnection())
+        {
+            productId = insertProduct(connection, stock);
+            List<Integer> userIds = insertUsersWithCarts(connection, checkouts, productId);
+
+            List<Callable<Boolean>> tasks = new ArrayList<>();
+            for (int userId : userIds)
+            {
+                tasks.add(() -> {
+                    try
+                    {
+                        concurrentDao.checkout(userId, BigDecimal.ZERO);
+                        return true;
+                    }
+                    catch (CheckoutException e)
+                    {
+                        assertEquals(CheckoutException.Reason.OUT_OF_STOCK, e.getReason());
+                        return false;
+                    }
+                });
+            }
+
+            // act
+            int sold = 0;
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+            {
+                if (result.get()) sold++;
+            }
+
+            // assert
+            assertEquals(stock, sold, "Because exactly the stock on hand can be sold.");
+            assertEquals(0, committedStock(connection, productId), "Because every unit was sold and none twice.");
+            assertEquals(stock, committedQuantitySold(connection, productId), "Because each sale wrote one line of one.");
+        }
+        catch (ExecutionException e)
+        {
+            throw (Exception) e.getCause();
+        }
+        finally
+        {
+            executor.shutdown();
+            // the concurrent checkouts commit, so everything they wrote has to be removed by hand
+            try (Connection connection = concurrentDataSource.getConnection())
+            {
+                deleteContentionData(connection, productId);
+            }
+        }
+    }
+
+    private static void setStock(Connection connection, int productId, int stock) throws SQLException
+    {
+        PreparedStatement statement = connection.prepareStatement("UPDATE products SET stock = ? WHERE product_id = ?");
+        statement.setInt(1, stock);
+        statement.setInt(2, productId);
+        statement.executeUpdate();
+    }
+
+    private static int insertProduct(Connection connection, int stock) throws SQLException
+    {
+        PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO products (name, price, category_id, description, image_url, stock, featured, subcategory) " +
+                "VALUES ('Contended', 10.00, 1, 'Flash sale item', '', ?, 0, '')", Statement.RETURN_GENERATED_KEYS);
+        statement.setInt(1, stock);
+        statement.executeUpdate();
+
+        ResultSet keys = statement.getGeneratedKeys();
+        keys.next();
+        return keys.getInt(1);
+    }
+
+    private static List<Integer> insertUsersWithCarts(Connection connection, int count, int productId) throws SQLException
+    {
+        List<Integer> userIds = new ArrayList<>();
+        PreparedStatement user = connection.prepareStatement(
+                "INSERT INTO users (username, hashed_password, role) VALUES (?, '', 'ROLE_USER')", Statement.RETURN_GENERATED_KEYS);
+        PreparedStatement profile = connection.prepareStatement(
+                "INSERT INTO profiles (user_id, first_name, last_name, phone, email, address, city, state, zip) " +
+                "VALUES (?, 'Load', 'Test', '', '', '1 Main Street', 'Dallas', 'TX', '75001')");
+        PreparedStatement cart = connection.prepareStatement(
+                "INSERT INTO shopping_cart (user_id, product_id, quantity) VALUES (?, ?, 1)");
+
+        for (int i = 0; i < count; i++)
+        {
+            user.setString(1, CONTENTION_USER_PREFIX + i);
+            user.executeUpdate();
+            ResultSet keys = user.getGeneratedKeys();
+            keys.next();
+            int userId = keys.getInt(1);
+            userIds.add(userId);
+
+            profile.setInt(1, userId);
+            profile.executeUpdate();
+
+            cart.setInt(1, userId);
+            cart.setInt(2, productId);
+            cart.executeUpdate();
+        }
+        return userIds;
+    }
+
+    private static int committedStock(Connection connection, int productId) throws SQLException
+    {
+        PreparedStatement statement = connection.prepareStatement("SELECT stock FROM products WHERE product_id = ?");
+        statement.setInt(1, productId);
+        ResultSet row = statement.executeQuery();
+        row.next();
+        return row.getInt(1);
+    }
+
+    private static int committedQuantitySold(Connection connection, int productId) throws SQLException
+    {
+        PreparedStatement statement = connection.prepareStatement("SELECT COALESCE(SUM(quantity), 0) FROM order_line_items WHERE product_id = ?");
+        statement.setInt(1, productId);
+        ResultSet row = statement.executeQuery();
+        row.next();
+        return row.getInt(1);
+    }
+
+    private static void deleteContentionData(Connection connection, int productId) throws SQLException
+    {
+        String users = "SELECT user_id FROM users WHERE username LIKE '" + CONTENTION_USER_PREFIX + "%'";
+        String[] statements = {
+                "DELETE FROM order_line_items WHERE product_id = ?",
+                "DELETE FROM orders WHERE user_id IN (" + users + ")",
+                "DELETE FROM shopping_cart WHERE user_id IN (" + users + ")",
+                "DELETE FROM profiles WHERE user_id IN (" + users + ")",
+                "DELETE FROM users WHERE username LIKE '" + CONTENTION_USER_PREFIX + "%'",
+                "DELETE FROM products WHERE product_id = ?"
+        };
+
+        for (String sql : statements)
+        {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            if (sql.contains("?")) statement.setInt(1, productId);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -4,9 +4,12 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.yearup.models.Product;
+import org.yearup.models.ProductAdjustment;
+import org.yearup.models.ProductAdjustmentResult;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -63,6 +66,21 @@ class MySqlProductDaoTest extends BaseDaoTestClass
         assertEquals(12, results.size(), "Should return all 12 products when no filters are applied");
     }
 
+    @Test
+    public void streamSearch_shouldHandOverTheSameProducts_asSearch()
+    {
+        // arrange
+        List<Product> streamed = new ArrayList<>();
+
+        // act
+        dao.streamSearch(2, new BigDecimal("50.00"), null, null, streamed::add);
+
+        // assert
+        assertEquals(dao.search(2, new BigDecimal("50.00"), null, null).stream().map(Product::getProductId).toList(),
+                streamed.stream().map(Product::getProductId).toList(),
+                "Because streaming only changes how the rows are read, not which.");
+    }
+
     @Test
     public void search_byCategoryId_shouldReturnProductsInCategory()
     {
@@ -333,4 +351,48 @@ class MySqlProductDaoTest extends BaseDaoTestClass
                 "All products should be in category 2 (Fashion)");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void createAll_shouldInsertEveryProduct_andSetTheGeneratedIds()
+    {
+        // arrange
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 2500; i++)
+        {
+            products.add(new Product(0, "Imported " + i, new BigDecimal("9.99"), 3, "Bulk import.", "Gray", 5, false, "no-image.jpg"));
+        }
+
+        // act
+        List<Product> created = dao.createAll(products);
+
+        // assert
+        assertEquals(2500, created.size());
+        assertEquals(2500, created.stream().map(Product::getProductId).distinct().count(), "Because every row gets its own id.");
+        assertEquals("Imported 1234", dao.getById(created.get(1234).getProductId()).getName(),
+                "Because ids are assigned in insert order.");
+    }
+
+    @Test
+    public void adjustAll_shouldApplyDeltas_andReportEveryLine()
+    {
+        // arrange - product 1 starts with 50 in stock at 499.99
+        List<ProductAdjustment> adjustments = List.of(
+                new ProductAdjustment(1, -10, null),
+                new ProductAdjustment(1, 5, new BigDecimal("449.99")),
+                new ProductAdjustment(1, -100, null),
+                new ProductAdjustment(999, 1, null));
+
+        // act
+        List<ProductAdjustmentResult> results = dao.adjustAll(adjustments);
+
+        // assert
+        assertEquals(ProductAdjustmentResult.Status.UPDATED, results.get(0).getStatus());
+        assertEquals(40, results.get(0).getStock());
+        assertEquals(45, results.get(1).getStock(), "Because the second line builds on the first.");
+        assertEquals(ProductAdjustmentResult.Status.REJECTED, results.get(2).getStatus(), "Because stock cannot go below zero.");
+        assertEquals(ProductAdjustmentResult.Status.NOT_FOUND, results.get(3).getStatus());
+
+        Product stored = dao.getById(1);
+        assertEquals(45, stored.getStock());
+        assertEquals(new BigDecimal("449.99"), stored.getPrice());
+    }
+}
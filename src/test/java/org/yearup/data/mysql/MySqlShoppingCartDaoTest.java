@@ -0,0 +1,162 @@
+package org.yearup.data.mysql;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.yearup.models.CartOperation;
+import org.yearup.models.ShoppingCart;
+import org.yearup.models.ShoppingCartItem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MySqlShoppingCartDaoTest extends BaseDaoTestClass
+{
+    private static final int USER_ID = 1;
+    private static final int PRODUCT_ID = 2;
+
+    @Value("${datasource.url}")
+    private String serverUrl;
+    @Value("${datasource.testdb}")
+    private String testDb;
+    @Value("${datasource.username}")
+    private String username;
+    @Value("${datasource.password}")
+    private String password;
+
+    private MySqlShoppingCartDao dao;
+    // a connection per call, so concurrent adds really run in separate sessions
+    private DriverManagerDataSource concurrentDataSource;
+
+    @BeforeEach
+    public void setup()
+    {
+        dao = new MySqlShoppingCartDao(dataSource);
+        concurrentDataSource = new DriverManagerDataSource(String.format("%s/%s", serverUrl, testDb), username, password);
+    }
+
+    @Test
+    public void addProduct_twice_shouldIncrementTheQuantity()
+    {
+        // act
+        ShoppingCartItem first = dao.addProduct(USER_ID, PRODUCT_ID);
+        ShoppingCartItem second = dao.addProduct(USER_ID, PRODUCT_ID);
+
+        // assert
+        assertEquals(1, first.getQuantity(), "Because the first add creates the line.");
+        assertEquals(2, second.getQuantity(), "Because the second add should report the incremented quantity.");
+        ShoppingCart cart = dao.getByUserId(USER_ID);
+        assertEquals(2, cart.get(PRODUCT_ID).getQuantity(), "Because the product was added twice.");
+    }
+
+    @Test
+    public void updateQuantity_shouldReturnNull_whenTheProductIsNotInTheCart()
+    {
+        // act
+        ShoppingCartItem item = dao.updateQuantity(USER_ID, PRODUCT_ID, 3);
+
+        // assert
+        assertNull(item, "Because there was no cart line to update.");
+    }
+
+    @Test
+    public void apply_shouldFoldTheOperationsPerProduct()
+    {
+        // arrange
+        dao.addProduct(USER_ID, 3);
+        List<CartOperation> operations = List.of(
+                new CartOperation(CartOperation.Type.ADD, PRODUCT_ID, null),
+                new CartOperation(CartOperation.Type.ADD, PRODUCT_ID, 2),
+                new CartOperation(CartOperation.Type.SET, 4, 5),
+                new CartOperation(CartOperation.Type.ADD, 4, 1),
+                new CartOperation(CartOperation.Type.REMOVE, 3, null));
+
+        // act
+        dao.apply(USER_ID, operations);
+
+        // assert
+        ShoppingCart cart = dao.getByUserId(USER_ID);
+        assertEquals(3, cart.get(PRODUCT_ID).getQuantity(), "Because 1 and then 2 were added.");
+        assertEquals(6, cart.get(4).getQuantity(), "Because 1 was added after setting 5.");
+        assertFalse(cart.contains(3), "Because product 3 was removed.");
+    }
+
+    @Test
+    public void applyAll_shouldWriteEveryUsersLines()
+    {
+        // act
+        dao.applyAll(Map.of(
+                1, List.of(new CartOperation(CartOperation.Type.SET, 4, 2)),
+                2, List.of(new CartOperation(CartOperation.Type.SET, 4, 5), new CartOperation(CartOperation.Type.ADD, 5, 1))));
+
+        // assert
+        assertEquals(2, dao.getByUserId(1).get(4).getQuantity());
+        assertEquals(5, dao.getByUserId(2).get(4).getQuantity());
+        assertEquals(1, dao.getByUserId(2).get(5).getQuantity());
+    }
+
+    @Test
+    public void addProduct_fromManyThreads_shouldNotLoseAnIncrement() throws Exception
+    {
+        // arrange
+        int threads = 16;
+        int addsPerThread = 25;
+        MySqlShoppingCartDao concurrentDao = new MySqlShoppingCartDao(concurrentDataSource);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+        {
+            tasks.add(() -> {
+                for (int j = 0; j < addsPerThread; j++)
+                {
+                    concurrentDao.addProduct(USER_ID, PRODUCT_ID);
+                }
+                return null;
+            });
+        }
+
+        try
+        {
+            // act
+            for (Future<Void> result : executor.invokeAll(tasks))
+            {
+                result.get();
+            }
+
+            // assert
+            assertEquals(threads * addsPerThread, committedQuantity(), "Because every add from every thread should be counted.");
+        }
+        finally
+        {
+            executor.shutdown();
+            // the concurrent adds commit, so they have to be removed by hand
+            concurrentDao.removeProduct(USER_ID, PRODUCT_ID);
+        }
+    }
+
+    private int committedQuantity() throws SQLException
+    {
+        try (Connection connection = concurrentDataSource.getConnection())
+        {
+            PreparedStatement statement = connection.prepareStatement("SELECT quantity FROM shopping_cart WHERE user_id = ? AND product_id = ?");
+            statement.setInt(1, USER_ID);
+            statement.setInt(2, PRODUCT_ID);
+
+            ResultSet row = statement.executeQuery();
+            return row.next() ? row.getInt(1) : 0;
+        }
+    }
+}
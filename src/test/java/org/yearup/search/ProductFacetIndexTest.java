@@ -0,0 +1,93 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.models.PriceRangeCount;
+import org.yearup.models.Product;
+import org.yearup.models.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductFacetIndexTest
+{
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    public void setup()
+    {
+        index = new ProductFacetIndex();
+        index.productsLoaded(List.of(
+                product(1, 1, "Black", "499.99"),
+                product(2, 1, "Silver", "899.99"),
+                product(3, 1, "Black", "99.99"),
+                product(5, 2, "Blue", "39.99"),
+                product(6, 2, "black", "19.99"),
+                product(11, 3, "Silver", "79.99")
+        ));
+    }
+
+    @Test
+    public void facets_withoutFilters_shouldCountEveryProduct()
+    {
+        // act
+        ProductFacets facets = index.facets(null, null, null, null);
+
+        // assert
+        assertEquals(Map.of(1, 3, 2, 2, 3, 1), facets.getCategories());
+        assertEquals(Map.of("Black", 3, "Silver", 2, "Blue", 1), facets.getSubCategories(),
+                "Because subcategories are counted case-insensitively.");
+        assertEquals(List.of(1, 1, 2, 0, 1, 1), counts(facets));
+    }
+
+    @Test
+    public void facets_shouldNotApplyAFacetsOwnFilter()
+    {
+        // act
+        ProductFacets facets = index.facets(1, null, null, "black");
+
+        // assert
+        assertEquals(Map.of(1, 2, 2, 1), facets.getCategories(), "Because category counts ignore the category filter.");
+        assertEquals(Map.of("Black", 2, "Silver", 1), facets.getSubCategories(), "Because subcategory counts ignore the subcategory filter.");
+        assertEquals(List.of(0, 0, 1, 0, 1, 0), counts(facets), "Because price counts apply both filters.");
+    }
+
+    @Test
+    public void facets_shouldApplyThePriceFilterToTheOtherFacets()
+    {
+        // act
+        ProductFacets facets = index.facets(null, new BigDecimal("50"), new BigDecimal("100"), null);
+
+        // assert
+        assertEquals(Map.of(1, 1, 3, 1), facets.getCategories());
+        assertEquals(List.of(1, 1, 2, 0, 1, 1), counts(facets), "Because price counts ignore the price filter.");
+    }
+
+    @Test
+    public void productSaved_andDeleted_shouldUpdateTheCounts()
+    {
+        // act
+        index.productSaved(product(2, 3, "Silver", "20.00"));
+        index.productDeleted(5);
+
+        // assert
+        ProductFacets facets = index.facets(null, null, null, null);
+        assertEquals(Map.of(1, 2, 2, 1, 3, 2), facets.getCategories());
+        assertFalse(facets.getSubCategories().containsKey("Blue"), "Because the only blue product was deleted.");
+        assertEquals(List.of(2, 0, 2, 0, 1, 0), counts(facets));
+    }
+
+    private static List<Integer> counts(ProductFacets facets)
+    {
+        return facets.getPriceRanges().stream().map(PriceRangeCount::getCount).collect(Collectors.toList());
+    }
+
+    private static Product product(int productId, int categoryId, String subCategory, String price)
+    {
+        return new Product(productId, "Product " + productId, new BigDecimal(price), categoryId, "", subCategory, 10, false, "no-image.jpg");
+    }
+}
@@ -0,0 +1,76 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Product;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSearchIndexTest
+{
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    public void setup()
+    {
+        index = new ProductSearchIndex();
+        index.productsLoaded(List.of(
+                product(1, "Smartphone", "A powerful and feature-rich smartphone for all your communication needs."),
+                product(3, "Headphones", "Immerse yourself in music with these high-quality headphones."),
+                product(5, "Men's Jeans", "Classic denim jeans for a timeless and casual look."),
+                product(8, "Women's Jeans", "Comfortable and stylish jeans for a fashionable look."),
+                product(11, "Coffee Maker", "Brew your favorite coffee with this efficient and stylish coffee maker.")
+        ));
+    }
+
+    @Test
+    public void search_shouldMatchStemmedTerms()
+    {
+        // act
+        List<Integer> results = index.search("jean", 10);
+
+        // assert
+        assertEquals(2, results.size(), "Because both jeans products contain the stem of 'jean'.");
+        assertTrue(results.containsAll(List.of(5, 8)), "Because products 5 and 8 are jeans.");
+    }
+
+    @Test
+    public void search_shouldRankNameMatchesFirst()
+    {
+        // act
+        List<Integer> results = index.search("stylish coffee", 10);
+
+        // assert
+        assertEquals(11, results.get(0), "Because 'coffee' is in the name of product 11.");
+        assertTrue(results.contains(8), "Because product 8 is described as stylish.");
+    }
+
+    @Test
+    public void productSaved_shouldReplaceTheIndexedText()
+    {
+        // act
+        index.productSaved(product(3, "Earbuds", "Wireless earbuds."));
+
+        // assert
+        assertTrue(index.search("headphones", 10).isEmpty(), "Because product 3 no longer mentions headphones.");
+        assertEquals(List.of(3), index.search("earbud", 10), "Because product 3 is now earbuds.");
+    }
+
+    @Test
+    public void productDeleted_shouldRemoveTheProduct()
+    {
+        // act
+        index.productDeleted(1);
+
+        // assert
+        assertTrue(index.search("smartphone", 10).isEmpty(), "Because product 1 was deleted.");
+    }
+
+    private static Product product(int productId, String name, String description)
+    {
+        return new Product(productId, name, new BigDecimal("10.00"), 1, description, "Black", 10, false, "no-image.jpg");
+    }
+}
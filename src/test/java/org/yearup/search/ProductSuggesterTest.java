@@ -0,0 +1,111 @@
+package org.yearup.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.models.Product;
+import org.yearup.models.ProductSuggestion;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSuggesterTest
+{
+    private ProductSuggester suggester;
+
+    @BeforeEach
+    public void setup()
+    {
+        suggester = new ProductSuggester();
+        suggester.productsLoaded(List.of(
+                product(1, "Smartphone", 50, false),
+                product(5, "Men's Jeans", 10, false),
+                product(8, "Women's Jeans", 40, false),
+                product(9, "Jean Jacket", 5, true),
+                product(11, "Coffee Maker", 20, false)
+        ));
+    }
+
+    @Test
+    public void suggest_shouldMatchAnyWordInTheName()
+    {
+        // act
+        List<Integer> results = ids(suggester.suggest("jea", 10));
+
+        // assert
+        assertEquals(List.of(9, 8, 5), results, "Because featured products rank first, then products with more stock.");
+    }
+
+    @Test
+    public void suggest_shouldIgnoreCaseAndRespectTheLimit()
+    {
+        // act
+        List<Integer> results = ids(suggester.suggest("  JEANS", 1));
+
+        // assert
+        assertEquals(List.of(8), results, "Because product 8 has the most stock of the jeans.");
+    }
+
+    @Test
+    public void suggest_shouldMatchAcrossWords()
+    {
+        // act
+        List<Integer> results = ids(suggester.suggest("men's  j", 10));
+
+        // assert
+        assertEquals(List.of(5), results, "Because only product 5 is named Men's J...");
+    }
+
+    @Test
+    public void productSaved_andDeleted_shouldRebuildTheSuggestions()
+    {
+        // act
+        suggester.productSaved(product(11, "Espresso Machine", 20, false));
+        suggester.productDeleted(1);
+
+        // assert
+        assertTrue(suggester.suggest("coffee", 10).isEmpty(), "Because product 11 was renamed.");
+        assertEquals(List.of(11), ids(suggester.suggest("esp", 10)), "Because product 11 is now an espresso machine.");
+        assertTrue(suggester.suggest("smart", 10).isEmpty(), "Because product 1 was deleted.");
+    }
+
+    private static List<Integer> ids(List<ProductSuggestion> suggestions)
+    {
+        return suggestions.stream().map(ProductSuggestion::getProductId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void stockChanged_shouldBeRankedAtTheNextRebuild_withoutTriggeringOne()
+    {
+        // arrange: checkouts leave product 8 with less stock than product 5
+        suggester.stockChanged(List.of(product(8, "Women's Jeans", 1, false)));
+        List<Integer> beforeRebuild = ids(suggester.suggest("jeans", 10));
+
+        // act
+        suggester.productSaved(product(11, "Coffee Machine", 20, false));
+
+        // assert
+        assertEquals(List.of(8, 5), beforeRebuild, "Because a stock-only change does not rebuild the trie.");
+        assertEquals(List.of(5, 8), ids(suggester.suggest("jeans", 10)), "Because the next rebuild ranks with the new stock.");
+    }
+
+    @Test
+    public void productsSaved_shouldOnlyRebuild_whenANameOrFeaturedFlagChanges()
+    {
+        // act: a bulk stock adjustment, then a product is featured
+        suggester.productsSaved(List.of(product(8, "Women's Jeans", 1, false), product(1, "Smartphone", 0, false)));
+        List<Integer> afterStockChange = ids(suggester.suggest("jeans", 10));
+        suggester.productsSaved(List.of(product(5, "Men's Jeans", 10, true)));
+
+        // assert
+        assertEquals(List.of(8, 5), afterStockChange, "Because a stock change alone does not rebuild the trie.");
+        assertEquals(List.of(5, 8), ids(suggester.suggest("jeans", 10)), "Because product 5 is now featured.");
+    }
+
+    private static Product product(int productId, String name, int stock, boolean featured)
+    {
+        return new Product(productId, name, new BigDecimal("10.00"), 1, "", "Black", stock, featured, "no-image.jpg");
+    }
+}
@@ -0,0 +1,108 @@
+package org.yearup.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest
+{
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    // encodes by reversing, and blocks on "slow" until released
+    private final PasswordEncoder delegate = new PasswordEncoder()
+    {
+        @Override
+        public String encode(CharSequence rawPassword)
+        {
+            if (rawPassword.toString().equals("slow"))
+            {
+                started.countDown();
+                await(release);
+            }
+            return new StringBuilder(rawPassword).reverse().toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword)
+        {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    };
+
+    private final BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(delegate, 1, 1, Duration.ofSeconds(3), meterRegistry);
+
+    @AfterEach
+    public void tearDown()
+    {
+        release.countDown();
+        callers.shutdownNow();
+        encoder.close();
+    }
+
+    @Test
+    public void encode_shouldHashOnThePool_andRecordTheLatency()
+    {
+        // act
+        String encoded = encoder.encode("password");
+
+        // assert
+        assertEquals("drowssap", encoded);
+        assertTrue(encoder.matches("password", encoded), "Because matches runs the same delegate.");
+        assertEquals(1, meterRegistry.get("passwords.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("passwords.hash").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    public void encode_shouldRejectWith503_whenTheQueueIsFull() throws Exception
+    {
+        // arrange: one hash running and one waiting fill the pool and the queue
+        callers.submit(() -> encoder.encode("slow"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        callers.submit(() -> encoder.encode("queued"));
+        waitForQueueSize(1);
+
+        // act
+        PasswordHashingBusyException e = assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("rejected"));
+
+        // assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+        assertEquals("3", e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.get("passwords.rejected").counter().count());
+    }
+
+    private void waitForQueueSize(int size) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("passwords.queue.size").gauge().value() < size)
+        {
+            assertTrue(System.nanoTime() < deadline, "Because the second hash should be queued.");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
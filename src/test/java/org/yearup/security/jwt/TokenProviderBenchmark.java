@@ -0,0 +1,85 @@
+package org.yearup.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.yearup.security.AuthenticatedUser;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the filter's old validate-then-authenticate path, which verified every token twice,
+ * with a single parse and with a repeat request served from the verified cache, on one thread
+ * and with every core hitting the same cache at once.
+ *
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main TokenProviderBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark
+{
+    private TokenProvider tokenProvider;
+    private JwtParser parser;
+    private String token;
+
+    @Setup
+    public void setup()
+    {
+        tokenProvider = new TokenProvider(Base64.getEncoder().encodeToString(new byte[64]), 3600, 10000);
+        tokenProvider.afterPropertiesSet();
+        parser = Jwts.parserBuilder().setSigningKey(Keys.hmacShaKeyFor(new byte[64])).build();
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        AuthenticatedUser user = new AuthenticatedUser(1, "user", "", authorities);
+        token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken(user, "", authorities), false);
+    }
+
+    // the old filter: validateToken and then getAuthentication, each parsing and verifying the token
+    @Benchmark
+    public Claims parseTwice()
+    {
+        parser.parseClaimsJws(token);
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims parseOnce()
+    {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Authentication authenticateCached()
+    {
+        return tokenProvider.authenticate(token);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Authentication authenticateCachedConcurrently()
+    {
+        return tokenProvider.authenticate(token);
+    }
+}
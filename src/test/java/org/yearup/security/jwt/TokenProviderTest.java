@@ -0,0 +1,91 @@
+package org.yearup.security.jwt;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.yearup.security.AuthenticatedUser;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenProviderTest
+{
+    private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private TokenProvider tokenProvider;
+
+    @BeforeEach
+    public void setup()
+    {
+        tokenProvider = new TokenProvider(Base64.getEncoder().encodeToString(new byte[64]), 3600, 100);
+        tokenProvider.afterPropertiesSet();
+    }
+
+    @Test
+    public void authenticate_shouldCarryTheUserId_fromTheToken()
+    {
+        // arrange
+        AuthenticatedUser user = new AuthenticatedUser(42, "user", "", AUTHORITIES);
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken(user, "", AUTHORITIES), false);
+
+        // act
+        Authentication authentication = tokenProvider.authenticate(token);
+
+        // assert
+        AuthenticatedUser principal = assertInstanceOf(AuthenticatedUser.class, authentication.getPrincipal());
+        assertEquals(42, principal.getId());
+        assertEquals("user", principal.getUsername());
+    }
+
+    @Test
+    public void authenticate_withoutAUserId_shouldStillAuthenticate()
+    {
+        // arrange
+        User user = new User("user", "", AUTHORITIES);
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken(user, "", AUTHORITIES), false);
+
+        // act
+        Authentication authentication = tokenProvider.authenticate(token);
+
+        // assert
+        assertFalse(authentication.getPrincipal() instanceof AuthenticatedUser, "Because the token has no id claim.");
+        assertEquals("user", authentication.getName());
+    }
+
+    @Test
+    public void authenticate_shouldServeARepeatedToken_fromTheVerifiedCache()
+    {
+        // arrange
+        AuthenticatedUser user = new AuthenticatedUser(42, "user", "", AUTHORITIES);
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken(user, "", AUTHORITIES), false);
+
+        // act
+        Authentication first = tokenProvider.authenticate(token);
+        Authentication second = tokenProvider.authenticate(token);
+
+        // assert
+        assertEquals(42, ((AuthenticatedUser) first.getPrincipal()).getId());
+        assertSame(first, second, "Because the second request should not parse the token again.");
+    }
+
+    @Test
+    public void authenticate_shouldReject_aTamperedToken()
+    {
+        // arrange
+        User user = new User("user", "", AUTHORITIES);
+        String token = tokenProvider.createToken(new UsernamePasswordAuthenticationToken(user, "", AUTHORITIES), false);
+        tokenProvider.authenticate(token);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        // act
+        Authentication authentication = tokenProvider.authenticate(tampered);
+
+        // assert
+        assertNull(authentication, "Because the signature no longer matches.");
+    }
+}
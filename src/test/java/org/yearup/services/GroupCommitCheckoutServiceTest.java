@@ -0,0 +1,132 @@
+package org.yearup.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.yearup.data.CheckoutException;
+import org.yearup.data.CheckoutResult;
+import org.yearup.models.Order;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GroupCommitCheckoutServiceTest
+{
+    private final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+    private CheckoutService checkoutService;
+    private GroupCommitCheckoutService service;
+
+    @BeforeEach
+    public void setup()
+    {
+        checkoutService = mock(CheckoutService.class);
+
+        // the batch holding user 1 blocks until released, so later checkouts queue up behind it
+        when(checkoutService.placeAll(anyList())).thenAnswer(invocation -> {
+            List<Integer> userIds = invocation.getArgument(0);
+            if (userIds.contains(1))
+            {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            return userIds.stream()
+                          .map(userId -> userId == 4
+                                  ? CheckoutResult.failed(new CheckoutException(CheckoutException.Reason.CART_EMPTY, "Shopping cart is empty."))
+                                  : CheckoutResult.placed(order(userId)))
+                          .toList();
+        });
+
+        service = new GroupCommitCheckoutService(checkoutService, 3, 100);
+    }
+
+    @AfterEach
+    public void teardown()
+    {
+        releaseFirstBatch.countDown();
+        service.close();
+    }
+
+    @Test
+    public void submit_shouldPlaceQueuedCheckoutsInOneBatch_withTheirOwnResults() throws Exception
+    {
+        // arrange
+        CompletableFuture<Order> first = service.submit(1);
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Order> second = service.submit(2);
+        CompletableFuture<Order> third = service.submit(3);
+        CompletableFuture<Order> fourth = service.submit(4);
+
+        // act
+        releaseFirstBatch.countDown();
+
+        // assert
+        assertEquals(1, first.get(5, TimeUnit.SECONDS).getUserId());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).getUserId());
+        assertEquals(3, third.get(5, TimeUnit.SECONDS).getUserId());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> fourth.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CheckoutException.class, e.getCause(), "Because user 4's failure is reported to user 4 only.");
+        verify(checkoutService).placeAll(List.of(2, 3, 4));
+    }
+
+    @Test
+    public void submit_whenTheQueueIsFull_shouldBeRefused() throws Exception
+    {
+        // arrange: one batch committing and three checkouts waiting fill the queue
+        service.submit(1);
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        service.submit(2);
+        service.submit(3);
+        service.submit(5);
+
+        // act & assert
+        assertThrows(RejectedExecutionException.class, () -> service.submit(6));
+    }
+
+    @Test
+    public void submit_whenTheBatchFails_shouldPlaceEachOrderOnItsOwn() throws Exception
+    {
+        // arrange
+        when(checkoutService.placeAll(List.of(7))).thenThrow(new RuntimeException("Deadlock found when trying to get lock"));
+        when(checkoutService.place(7)).thenReturn(order(7));
+
+        // act
+        Order order = service.submit(7).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertEquals(7, order.getUserId());
+        verify(checkoutService).place(7);
+        verify(checkoutService, timeout(5000)).placed(order);
+    }
+
+    @Test
+    public void submit_whenUpdatingTheCachesFails_shouldStillAnswerWithTheCommittedOrder() throws Exception
+    {
+        // arrange
+        doThrow(new RuntimeException("Cart cache unavailable")).when(checkoutService).placed(any(Order.class));
+
+        // act
+        Order order = service.submit(8).get(5, TimeUnit.SECONDS);
+
+        // assert
+        assertEquals(8, order.getUserId());
+        verify(checkoutService, timeout(5000)).placed(order);
+        verify(checkoutService, never()).place(anyInt());
+    }
+
+    private static Order order(int userId)
+    {
+        Order order = new Order();
+        order.setUserId(userId);
+        return order;
+    }
+}
@@ -0,0 +1,83 @@
+package org.yearup.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.yearup.models.Product;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductListHttpMessageConverterTest
+{
+    private static final Type PRODUCT_LIST = new ParameterizedTypeReference<List<Product>>() {}.getType();
+
+    private ObjectMapper objectMapper;
+    private ProductJsonCache cache;
+    private ProductListHttpMessageConverter converter;
+
+    @BeforeEach
+    public void setup()
+    {
+        objectMapper = new ObjectMapper();
+        cache = new ProductJsonCache(objectMapper);
+        converter = new ProductListHttpMessageConverter(cache);
+    }
+
+    @Test
+    public void write_shouldMatchJackson() throws Exception
+    {
+        // arrange
+        List<Product> products = List.of(product(1, "Smartphone"), product(2, "Laptop"));
+
+        // act
+        String written = write(products);
+
+        // assert
+        assertEquals(objectMapper.writeValueAsString(products), written);
+    }
+
+    @Test
+    public void write_shouldReuseFragments_untilTheProductChanges() throws Exception
+    {
+        // arrange
+        Product product = product(1, "Smartphone");
+        byte[] first = cache.json(product);
+
+        // act
+        byte[] again = cache.json(product);
+        Product renamed = product(1, "Phone");
+        cache.productSaved(renamed);
+
+        // assert
+        assertSame(first, again, "Because the same product instance should reuse its bytes.");
+        assertEquals("[" + objectMapper.writeValueAsString(renamed) + "]", write(List.of(renamed)));
+    }
+
+    @Test
+    public void canWrite_shouldOnlyAcceptProductLists()
+    {
+        // assert
+        assertTrue(converter.canWrite(PRODUCT_LIST, List.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(new ParameterizedTypeReference<List<String>>() {}.getType(), List.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(Product.class, Product.class, MediaType.APPLICATION_JSON));
+    }
+
+    private String write(List<Product> products) throws Exception
+    {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(products, PRODUCT_LIST, MediaType.APPLICATION_JSON, message);
+        return message.getBodyAsString();
+    }
+
+    private static Product product(int productId, String name)
+    {
+        return new Product(productId, name, new BigDecimal("10.00"), 1, "", "Black", 10, false, "no-image.jpg");
+    }
+}
@@ -39,6 +39,10 @@ CREATE TABLE products (
                           stock INT NOT NULL DEFAULT 0,
                           featured BOOL NOT NULL DEFAULT 0,
                           PRIMARY KEY (product_id),
+                          INDEX idx_products_category_price (category_id, price),
+                          INDEX idx_products_subcategory_price (subcategory, price),
+                          INDEX idx_products_name (name),
+                          INDEX idx_products_category_name (category_id, name),
                           FOREIGN KEY (category_id) REFERENCES categories(category_id)
 );
 